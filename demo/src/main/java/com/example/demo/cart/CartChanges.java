@@ -0,0 +1,41 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartOperationDTO;
+import com.example.demo.exception.InsufficientStockException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+// Shared by the stores: folds a batch of operations into final quantities, checked before anything is applied
+final class CartChanges {
+
+    private CartChanges() {
+    }
+
+    /** Final quantity per touched product, 0 meaning the line goes away. */
+    static Map<Long, Integer> resolve(List<CartOperationDTO> operations, ToIntFunction<Long> currentQuantity) {
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (CartOperationDTO operation : operations) {
+            Long productId = operation.getProductId();
+            int current = result.containsKey(productId) ? result.get(productId) : currentQuantity.applyAsInt(productId);
+            int next = switch (operation.getOp()) {
+                case SET -> operation.getQuantity();
+                case ADD -> current + operation.getQuantity();
+                case REMOVE -> 0;
+            };
+            result.put(productId, next);
+        }
+        return result;
+    }
+
+    // Only lines that remain in the cart need stock
+    static void checkStock(Map<Long, Integer> quantities, Map<Long, Integer> stock) {
+        quantities.forEach((productId, quantity) -> {
+            if (quantity > 0 && stock.getOrDefault(productId, 0) < quantity) {
+                throw new InsufficientStockException("Not enough available for product " + productId);
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CartOperationDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where carts live. Selected with cart.store.mode:
+ * "jpa" writes every change through to the cart tables, "memory" applies changes
+ * in memory and flushes dirty carts to the same tables in the background.
+ * The memory store leaves ids unset: a cart has no id until its first flush and its lines never
+ * have one, so a cart line is identified by its product id under either mode.
+ */
+public interface CartStore {
+
+    /** @throws com.example.demo.exception.ResourceNotFoundException if the user has no cart */
+    CartDTO getCart(Long userId);
+
+    /** Adds to the product's line, creating the cart and the line as needed; checks stock. */
+    CartDTO addItem(Long userId, Long productId, int quantity);
+
+    void removeItem(Long userId, Long productId);
+
+    /**
+     * Applies the operations in order, all or nothing. Every product left in the cart
+     * must have at least its final quantity in the given stock map.
+     */
+    CartDTO apply(Long userId, List<CartOperationDTO> operations, Map<Long, Integer> stock);
+
+    void clear(Long userId);
+
+    /** Makes the user's cart durable before something else reads the tables. */
+    void flush(Long userId);
+}
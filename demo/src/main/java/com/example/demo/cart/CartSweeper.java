@@ -0,0 +1,118 @@
+package com.example.demo.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes the items of carts untouched for cart.sweeper.ttl, so abandoned carts do not keep
+ * growing cart_item. Works in batches of cart.sweeper.batch-size carts, each batch its own
+ * short statement, and sleeps between batches so that it is busy at most cart.sweeper.duty-cycle
+ * of the time: when the database slows down under checkout traffic, the sweeper backs off with it.
+ * The cart rows stay, they are one per user at most.
+ */
+@Component
+public class CartSweeper {
+    private final Logger logger = LoggerFactory.getLogger(CartSweeper.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final Counter itemsRemoved;
+    private final Counter cartsSwept;
+    private final Timer runTimer;
+
+    @Value("${cart.sweeper.ttl:30d}")
+    private Duration ttl;
+
+    @Value("${cart.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cart.sweeper.duty-cycle:0.25}")
+    private double dutyCycle;
+
+    @Value("${cart.sweeper.max-run:5m}")
+    private Duration maxRun;
+
+    public CartSweeper(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.itemsRemoved = Counter.builder("cart.sweeper.items.removed")
+                .description("Cart items deleted from expired carts")
+                .register(meterRegistry);
+        this.cartsSwept = Counter.builder("cart.sweeper.carts.swept")
+                .description("Expired carts emptied")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("cart.sweeper.run")
+                .description("Duration of a sweeper run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.sweeper.interval-ms:3600000}", initialDelayString = "${cart.sweeper.interval-ms:3600000}")
+    public void sweep() {
+        runTimer.record(this::sweepExpired);
+    }
+
+    private void sweepExpired() {
+        long start = System.nanoTime();
+        long deadline = start + maxRun.toNanos();
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(ttl));
+        long lastId = 0;
+        long carts = 0;
+        long items = 0;
+        while (System.nanoTime() < deadline) {
+            long batchStart = System.nanoTime();
+            // Walks the expired carts in id order; only carts that still have items are worth a delete
+            List<Long> cartIds = jdbcTemplate.queryForList(
+                    "select c.id from cart c where c.updated_at < ? and c.id > ? " +
+                            "and exists (select 1 from cart_item i where i.cart_id = c.id) order by c.id limit ?",
+                    Long.class, cutoff, lastId, batchSize);
+            if (cartIds.isEmpty()) {
+                break;
+            }
+            lastId = cartIds.get(cartIds.size() - 1);
+            // Re-checks the timestamp, a cart touched since the select is left alone
+            int deleted = namedJdbcTemplate.update(
+                    "delete i from cart_item i join cart c on c.id = i.cart_id " +
+                            "where c.id in (:cartIds) and c.updated_at < :cutoff",
+                    Map.of("cartIds", cartIds, "cutoff", cutoff));
+            carts += cartIds.size();
+            items += deleted;
+            itemsRemoved.increment(deleted);
+            cartsSwept.increment(cartIds.size());
+            if (cartIds.size() < batchSize) {
+                break;
+            }
+            pause(System.nanoTime() - batchStart);
+        }
+        if (carts > 0) {
+            logger.info("Cart sweeper removed {} items from {} expired carts in {} ms",
+                    items, carts, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // Sleeping (1 - d) / d times the work keeps the sweeper busy at most a fraction d of the time
+    private void pause(long workNanos) {
+        long sleepMillis = (long) (workNanos * (1 - dutyCycle) / dutyCycle / 1_000_000);
+        if (sleepMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(sleepMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
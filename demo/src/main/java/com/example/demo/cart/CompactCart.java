@@ -0,0 +1,93 @@
+package com.example.demo.cart;
+
+import java.util.Arrays;
+
+/**
+ * A cart as two parallel primitive arrays, product ids and quantities.
+ * Not thread safe: {@link InMemoryCartStore} guards every instance with its own monitor.
+ */
+final class CompactCart {
+    private long[] productIds;
+    private int[] quantities;
+    private int size;
+
+    boolean exists; // Stored or created since, so getCart must not report "not found"
+    Long cartId; // Known once the cart has a row
+    boolean dirty;
+    boolean evicted; // Dropped from the store; a caller still holding it has to look it up again
+    long lastAccess;
+    long lastModified; // Written to cart.updated_at on flush
+
+    CompactCart(int capacity) {
+        productIds = new long[Math.max(capacity, 4)];
+        quantities = new int[productIds.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long productId(int index) {
+        return productIds[index];
+    }
+
+    int quantity(int index) {
+        return quantities[index];
+    }
+
+    int quantityOf(long productId) {
+        int i = indexOf(productId);
+        return i < 0 ? 0 : quantities[i];
+    }
+
+    void add(long productId, int quantity) {
+        int i = indexOf(productId);
+        if (i >= 0) {
+            quantities[i] += quantity;
+            return;
+        }
+        if (size == productIds.length) {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        productIds[size] = productId;
+        quantities[size] = quantity;
+        size++;
+    }
+
+    // A quantity of zero or less removes the line
+    void set(long productId, int quantity) {
+        int i = indexOf(productId);
+        if (quantity <= 0) {
+            remove(productId);
+        } else if (i >= 0) {
+            quantities[i] = quantity;
+        } else {
+            add(productId, quantity);
+        }
+    }
+
+    void remove(long productId) {
+        int i = indexOf(productId);
+        if (i < 0) {
+            return;
+        }
+        // Keep insertion order, carts are short
+        System.arraycopy(productIds, i + 1, productIds, i, size - i - 1);
+        System.arraycopy(quantities, i + 1, quantities, i, size - i - 1);
+        size--;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private int indexOf(long productId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
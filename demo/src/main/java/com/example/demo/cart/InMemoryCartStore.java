@@ -0,0 +1,359 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CartItemDTO;
+import com.example.demo.dto.CartOperationDTO;
+import com.example.demo.dto.ProductName;
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Cart;
+import com.example.demo.repositories.CartRepository;
+import com.example.demo.repositories.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind store. Carts are loaded from the tables on first use, changed in memory
+ * under a per-cart lock, and dirty carts are written back in JDBC batches every
+ * cart.store.flush-ms, at shutdown, and on demand before an order reads them.
+ * Carts that stay clean and untouched for cart.store.idle-evict-ms are dropped from memory.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryCartStore implements CartStore {
+    private final Logger logger = LoggerFactory.getLogger(InMemoryCartStore.class);
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cart.store.flush-batch-size:200}")
+    private int flushBatchSize;
+
+    @Value("${cart.store.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    private final Map<Long, CompactCart> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    // One writer at a time, so an older snapshot of a cart can never overwrite a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private TransactionTemplate flushTransaction;
+
+    private record Snapshot(Long userId, long[] productIds, int[] quantities, long lastModified) {
+    }
+
+    @PostConstruct
+    void init() {
+        // A flush forced from inside another transaction (order creation) must not share its fate:
+        // a rollback there would leave the cart marked clean but never written
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public CartDTO getCart(Long userId) {
+        Snapshot snapshot = withCart(userId, cart -> cart.exists ? snapshot(userId, cart) : null);
+        if (snapshot == null) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+        return toDto(userId, snapshot);
+    }
+
+    @Override
+    public CartDTO addItem(Long userId, Long productId, int quantity) {
+        Integer stock = productRepository.findQuantityById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        if (stock == null || stock < quantity) {
+            throw new InsufficientStockException("Not enough available");
+        }
+        Snapshot snapshot = withCart(userId, cart -> {
+            cart.add(productId, quantity);
+            cart.exists = true;
+            markDirty(userId, cart);
+            return snapshot(userId, cart);
+        });
+        return toDto(userId, snapshot);
+    }
+
+    @Override
+    public void removeItem(Long userId, Long productId) {
+        withCart(userId, cart -> {
+            if (!cart.exists) {
+                throw new ResourceNotFoundException("Cart not found for user");
+            }
+            cart.remove(productId);
+            markDirty(userId, cart);
+            return null;
+        });
+    }
+
+    @Override
+    public CartDTO apply(Long userId, List<CartOperationDTO> operations, Map<Long, Integer> stock) {
+        Snapshot snapshot = withCart(userId, cart -> {
+            Map<Long, Integer> quantities = CartChanges.resolve(operations, cart::quantityOf);
+            CartChanges.checkStock(quantities, stock);
+            quantities.forEach(cart::set);
+            cart.exists = true;
+            markDirty(userId, cart);
+            return snapshot(userId, cart);
+        });
+        return toDto(userId, snapshot);
+    }
+
+    @Override
+    public void clear(Long userId) {
+        withCart(userId, cart -> {
+            if (!cart.exists) {
+                throw new ResourceNotFoundException("Cart not found");
+            }
+            return null;
+        });
+        // Inside checkout the cart is only emptied once the order has committed,
+        // a rolled back order leaves it as it was
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearNow(userId);
+                }
+            });
+        } else {
+            clearNow(userId);
+        }
+    }
+
+    private void clearNow(Long userId) {
+        withCart(userId, cart -> {
+            cart.clear();
+            markDirty(userId, cart);
+            return null;
+        });
+    }
+
+    @Override
+    public void flush(Long userId) {
+        flushLock.lock();
+        try {
+            if (dirtyUsers.remove(userId)) {
+                write(List.of(userId));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.store.flush-ms:5000}")
+    public void flushDirty() {
+        flushLock.lock();
+        try {
+            List<Long> batch = new ArrayList<>(flushBatchSize);
+            Iterator<Long> iterator = dirtyUsers.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                iterator.remove();
+                if (batch.size() == flushBatchSize) {
+                    write(batch);
+                    batch = new ArrayList<>(flushBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+        if (!dirtyUsers.isEmpty()) {
+            logger.error("{} carts could not be written at shutdown", dirtyUsers.size());
+        }
+    }
+
+    // Runs the action under the cart's lock, loading the cart first if needed
+    private <T> T withCart(Long userId, Function<CompactCart, T> action) {
+        while (true) {
+            CompactCart cart = carts.computeIfAbsent(userId, this::load);
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue;
+                }
+                cart.lastAccess = System.currentTimeMillis();
+                return action.apply(cart);
+            }
+        }
+    }
+
+    private CompactCart load(Long userId) {
+        return cartRepository.findWithItemsByUserId(userId)
+                .map(this::toCompact)
+                .orElseGet(() -> new CompactCart(4));
+    }
+
+    private CompactCart toCompact(Cart stored) {
+        CompactCart cart = new CompactCart(stored.getItems().size());
+        stored.getItems().forEach(item -> cart.add(item.getProduct().getId(), item.getQuantity()));
+        cart.exists = true;
+        cart.cartId = stored.getId();
+        return cart;
+    }
+
+    private void markDirty(Long userId, CompactCart cart) {
+        cart.lastModified = System.currentTimeMillis();
+        cart.dirty = true;
+        dirtyUsers.add(userId);
+    }
+
+    private static Snapshot snapshot(Long userId, CompactCart cart) {
+        long[] productIds = new long[cart.size()];
+        int[] quantities = new int[cart.size()];
+        for (int i = 0; i < cart.size(); i++) {
+            productIds[i] = cart.productId(i);
+            quantities[i] = cart.quantity(i);
+        }
+        return new Snapshot(userId, productIds, quantities, cart.lastModified);
+    }
+
+    private CartDTO toDto(Long userId, Snapshot snapshot) {
+        Map<Long, String> names = snapshot.productIds().length == 0 ? Map.of()
+                : productRepository.findNamesByIdIn(Arrays.stream(snapshot.productIds()).boxed().toList()).stream()
+                .collect(Collectors.toMap(ProductName::getId, ProductName::getName));
+        List<CartItemDTO> items = new ArrayList<>(snapshot.productIds().length);
+        for (int i = 0; i < snapshot.productIds().length; i++) {
+            String name = names.get(snapshot.productIds()[i]);
+            if (name == null) {
+                continue; // Product deleted meanwhile, the flush drops the line as well
+            }
+            CartItemDTO item = new CartItemDTO();
+            item.setProductId(snapshot.productIds()[i]);
+            item.setProductName(name);
+            item.setQuantity(snapshot.quantities()[i]);
+            items.add(item);
+        }
+        CartDTO cart = new CartDTO();
+        CompactCart stored = carts.get(userId);
+        cart.setId(stored == null ? null : stored.cartId);
+        cart.setUserId(userId);
+        cart.setItems(items);
+        return cart;
+    }
+
+    // Replaces the stored lines of every cart in the batch, all in one transaction
+    private void write(List<Long> userIds) {
+        List<Snapshot> snapshots = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            CompactCart cart = carts.get(userId);
+            if (cart == null) {
+                continue;
+            }
+            synchronized (cart) {
+                cart.dirty = false;
+                snapshots.add(snapshot(userId, cart));
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Long, Long> cartIds = flushTransaction.execute(status -> writeSnapshots(snapshots));
+            cartIds.forEach((userId, cartId) -> {
+                CompactCart cart = carts.get(userId);
+                if (cart != null) {
+                    cart.cartId = cartId;
+                }
+            });
+            logger.debug("Flushed {} carts", snapshots.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} carts, will retry", snapshots.size(), e);
+            for (Snapshot snapshot : snapshots) {
+                CompactCart cart = carts.get(snapshot.userId());
+                if (cart != null) {
+                    synchronized (cart) {
+                        cart.dirty = true;
+                        dirtyUsers.add(snapshot.userId());
+                    }
+                }
+            }
+        }
+    }
+
+    private Map<Long, Long> writeSnapshots(List<Snapshot> snapshots) {
+        List<Long> userIds = snapshots.stream().map(Snapshot::userId).toList();
+        // Carts created in memory get their row here; cart.user_id is unique
+        jdbcTemplate.batchUpdate("insert ignore into cart (user_id) values (?)",
+                userIds.stream().map(id -> new Object[]{id}).toList());
+        jdbcTemplate.batchUpdate("update cart set updated_at = ? where user_id = ?",
+                snapshots.stream().map(s -> new Object[]{new Timestamp(s.lastModified()), s.userId()}).toList());
+
+        Map<Long, Long> cartIds = new HashMap<>();
+        namedJdbcTemplate.query("select id, user_id from cart where user_id in (:userIds)",
+                Map.of("userIds", userIds),
+                (RowCallbackHandler) rs -> cartIds.put(rs.getLong("user_id"), rs.getLong("id")));
+        if (cartIds.isEmpty()) {
+            return cartIds;
+        }
+
+        namedJdbcTemplate.update("delete from cart_item where cart_id in (:cartIds)",
+                Map.of("cartIds", cartIds.values()));
+        List<Object[]> rows = new ArrayList<>();
+        for (Snapshot snapshot : snapshots) {
+            Long cartId = cartIds.get(snapshot.userId());
+            if (cartId == null) {
+                continue; // The user no longer exists
+            }
+            for (int i = 0; i < snapshot.productIds().length; i++) {
+                rows.add(new Object[]{cartId, snapshot.quantities()[i], snapshot.productIds()[i]});
+            }
+        }
+        // Selecting from product skips lines whose product has been deleted instead of failing the batch
+        jdbcTemplate.batchUpdate("insert into cart_item (cart_id, product_id, quantity) " +
+                "select ?, p.id, ? from product p where p.id = ?", rows);
+        return cartIds;
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        carts.forEach((userId, cart) -> {
+            synchronized (cart) {
+                if (!cart.dirty && cart.lastAccess < cutoff) {
+                    cart.evicted = true;
+                    carts.remove(userId, cart);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.cart;
+
+import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CartItemDTO;
+import com.example.demo.dto.CartLineView;
+import com.example.demo.dto.CartOperationDTO;
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.mapper.CartMapper;
+import com.example.demo.model.Cart;
+import com.example.demo.model.CartItem;
+import com.example.demo.repositories.CartItemRepository;
+import com.example.demo.repositories.CartRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Write-through store: every change is a statement against the cart tables
+@Component
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaCartStore implements CartStore {
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final CartMapper cartMapper;
+
+    // One projection query, however many items the cart holds
+    @Override
+    public CartDTO getCart(Long userId) {
+        List<CartLineView> lines = cartRepository.findLinesByUserId(userId);
+        if (lines.isEmpty()) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+        List<CartItemDTO> items = new ArrayList<>(lines.size());
+        for (CartLineView line : lines) {
+            if (line.getItemId() == null) {
+                continue;
+            }
+            CartItemDTO item = new CartItemDTO();
+            item.setId(line.getItemId());
+            item.setProductId(line.getProductId());
+            item.setProductName(line.getProductName());
+            item.setQuantity(line.getQuantity());
+            items.add(item);
+        }
+        CartDTO cart = new CartDTO();
+        cart.setId(lines.get(0).getCartId());
+        cart.setUserId(userId);
+        cart.setItems(items);
+        return cart;
+    }
+
+    // Cart id lookup, one upsert that also checks stock, one fetch-join read
+    @Override
+    @Transactional
+    public CartDTO addItem(Long userId, Long productId, int quantity) {
+        Long cartId = cartRepository.findIdByUserId(userId)
+                .orElseGet(() -> createCart(userId));
+
+        if (cartItemRepository.upsertQuantity(cartId, productId, quantity) == 0) {
+            // Rejected by the statement: tell the two reasons apart
+            if (!productRepository.existsById(productId)) {
+                throw new ResourceNotFoundException("Product not found");
+            }
+            throw new InsufficientStockException("Not enough available");
+        }
+        cartRepository.touch(cartId, Instant.now());
+        return getCart(userId);
+    }
+
+    private Long createCart(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        Cart cart = new Cart(null, userRepository.getReferenceById(userId), new ArrayList<>());
+        return cartRepository.save(cart).getId();
+    }
+
+    @Override
+    public void removeItem(Long userId, Long productId) {
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cart not found for user"));
+
+        cart.getItems().removeIf(item -> item.getProduct().getId().equals(productId));
+        cart.setUpdatedAt(Instant.now());
+
+        cartRepository.save(cart);
+    }
+
+    // Expects to join the caller's transaction, in which the products have already been loaded
+    @Override
+    @Transactional
+    public CartDTO apply(Long userId, List<CartOperationDTO> operations, Map<Long, Integer> stock) {
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseGet(() -> cartRepository.findById(createCart(userId)).orElseThrow());
+        Map<Long, CartItem> lines = cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+
+        Map<Long, Integer> quantities = CartChanges.resolve(operations,
+                productId -> lines.containsKey(productId) ? lines.get(productId).getQuantity() : 0);
+        CartChanges.checkStock(quantities, stock);
+
+        quantities.forEach((productId, quantity) -> {
+            CartItem line = lines.get(productId);
+            if (quantity == 0) {
+                if (line != null) {
+                    cart.getItems().remove(line);
+                }
+            } else if (line != null) {
+                line.setQuantity(quantity);
+            } else {
+                cart.getItems().add(new CartItem(null, cart, productRepository.getReferenceById(productId), quantity));
+            }
+        });
+        cart.setUpdatedAt(Instant.now());
+        return cartMapper.toDTO(cartRepository.save(cart));
+    }
+
+    @Override
+    public void clear(Long userId) {
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+
+        cart.getItems().clear();
+        cart.setUpdatedAt(Instant.now());
+        cartRepository.save(cart);
+    }
+
+    @Override
+    public void flush(Long userId) {
+        // Already durable
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRODUCT_DETAILS = "productDetails";
+    public static final String CATEGORY_FIRST_PAGES = "categoryFirstPages";
+
+    @Value("${cache.product-details.maximum-size:10000}")
+    private long productDetailsMaximumSize;
+
+    @Value("${cache.product-details.ttl:10m}")
+    private Duration productDetailsTtl;
+
+    @Value("${cache.category-first-pages.maximum-size:1000}")
+    private long categoryFirstPagesMaximumSize;
+
+    @Value("${cache.category-first-pages.ttl:5m}")
+    private Duration categoryFirstPagesTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Caches are registered up front so that actuator binds their hit/miss/eviction metrics at startup
+        cacheManager.registerCustomCache(PRODUCT_DETAILS, Caffeine.newBuilder()
+                .maximumSize(productDetailsMaximumSize)
+                .expireAfterWrite(productDetailsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(CATEGORY_FIRST_PAGES, Caffeine.newBuilder()
+                .maximumSize(categoryFirstPagesMaximumSize)
+                .expireAfterWrite(categoryFirstPagesTtl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.CachedBody;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+// Turns a pre-serialized body into a response: 304 on a matching ETag, otherwise the stored bytes as they are
+final class CachedResponses {
+
+    private CachedResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(CachedBody body, WebRequest request) {
+        boolean gzip = body.getGzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // Each encoding is a different representation, so it gets its own ETag
+        String etag = "\"" + body.getEtag() + (gzip ? "-gz" : "") + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.getGzip());
+        }
+        return response.body(body.getJson());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+}
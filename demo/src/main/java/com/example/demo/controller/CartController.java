@@ -1,8 +1,10 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CartUpdateRequest;
 import com.example.demo.model.User;
 import com.example.demo.service.CartService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,6 +27,15 @@ public class CartController {
         return ResponseEntity.ok(cartService.addToCart(userId, productId, quantity));
     }
 
+    // Batch of set/add/remove operations, applied all or nothing
+    @PatchMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CartDTO> updateCart(@AuthenticationPrincipal UserDetails userDetails,
+                                              @Valid @RequestBody CartUpdateRequest request){
+        Long userId = ((User) userDetails).getId();
+        return ResponseEntity.ok(cartService.updateCart(userId, request.getOperations()));
+    }
+
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<CartDTO> getCart(@AuthenticationPrincipal UserDetails userDetails){
@@ -1,7 +1,12 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.CategoryDTO;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.service.CategoryCatalog;
 import com.example.demo.service.CategoryService;
+import com.example.demo.service.ProductService;
+import com.example.demo.service.ResponseCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -9,16 +14,18 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
 public class CategoryController {
     private final CategoryService categoryService;
+    private final ProductService productService;
+    private final ResponseCache responseCache;
 
     // Modified to handle multipart/form-data
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -30,13 +37,28 @@ public class CategoryController {
     }
 
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<byte[]> getAllCategories(WebRequest request) {
+        return CachedResponses.of(responseCache.get(ResponseCache.CATEGORIES, categoryService::getAllCategories), request);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id) {
-        return ResponseEntity.ok(categoryService.getCategoryById(id));
+    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id, WebRequest request) {
+        // The body carries the product count, so the ETag follows the catalog version, which product writes bump too
+        CategoryCatalog catalog = categoryService.getCatalog();
+        String etag = ETags.of("category", id, catalog.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(categoryService.getCategoryById(id, catalog));
+    }
+
+    // Keyset paginated: pass the returned nextCursor back as ?cursor= for the following page
+    @GetMapping("/{id}/products")
+    public ResponseEntity<CursorPage<ProductListDTO>> getCategoryProducts(@PathVariable Long id,
+                                                                         @RequestParam(required = false) String sort,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getCategoryProducts(id, sort, cursor, size));
     }
 
     // Modified to handle multipart/form-data
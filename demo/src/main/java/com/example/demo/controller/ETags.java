@@ -0,0 +1,24 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.CollectionVersion;
+
+import java.time.Instant;
+
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(String resource, Object id, long version) {
+        return "\"" + resource + "-" + id + "-" + version + "\"";
+    }
+
+    static String of(String collection, CollectionVersion version) {
+        return "\"" + collection + "-" + version.getCount() + "-" + millis(version.getLastModified()) + "\"";
+    }
+
+    // -1 tells WebRequest.checkNotModified to skip the Last-Modified check
+    static long millis(Instant instant) {
+        return instant == null ? -1 : instant.toEpochMilli();
+    }
+}
@@ -2,12 +2,14 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.HeroDTO;
 import com.example.demo.service.HeroService;
+import com.example.demo.service.ResponseCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -18,10 +20,11 @@ import java.io.IOException;
 public class HeroController {
 
     private final HeroService heroService;
+    private final ResponseCache responseCache;
 
     @GetMapping
-    public ResponseEntity<HeroDTO> getHero() {
-        return ResponseEntity.ok(heroService.getHero());
+    public ResponseEntity<byte[]> getHero(WebRequest request) {
+        return CachedResponses.of(responseCache.get(ResponseCache.HERO, heroService::getHero), request);
     }
 
     @PutMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
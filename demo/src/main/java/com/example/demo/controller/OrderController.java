@@ -1,16 +1,20 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.OrderDTO;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import com.example.demo.service.OrderIdempotencyService;
 import com.example.demo.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,21 +22,32 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
+    // With an Idempotency-Key header, retries of the same request return the order already created
     @PostMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<OrderDTO> createOrder(@AuthenticationPrincipal UserDetails userDetails,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                                                 @RequestParam String address,
                                                 @RequestParam String phoneNumber){
         Long userId = ((User) userDetails).getId();
-        OrderDTO orderDTO = orderService.createOrder(userId, address, phoneNumber);
+        OrderDTO orderDTO = idempotencyKey == null
+                ? orderService.createOrder(userId, address, phoneNumber)
+                : orderIdempotencyService.createOrder(userId, idempotencyKey, address, phoneNumber);
         return ResponseEntity.ok(orderDTO);
     }
 
+    // Keyset paginated, newest first: pass nextCursor back as ?cursor= for the following page
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderDTO>> getAllOrders(){
-        List<OrderDTO> orders = orderService.getAllOrders();
+    public ResponseEntity<CursorPage<OrderDTO>> getAllOrders(@RequestParam(required = false) Order.OrderStatus status,
+                                                             @RequestParam(required = false) Long userId,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer size){
+        CursorPage<OrderDTO> orders = orderService.searchOrders(status, userId, from, to, cursor, size);
         return ResponseEntity.ok(orders);
     }
     @GetMapping("/user")
@@ -1,15 +1,30 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CollectionVersion;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductImportResultDTO;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.dto.ProductSearchResultDTO;
+import com.example.demo.dto.SuggestionDTO;
+import com.example.demo.service.ProductExportService;
+import com.example.demo.service.ProductImportService;
 import com.example.demo.service.ProductService;
+import com.example.demo.service.ProductSnapshot;
+import com.example.demo.service.ProductSnapshotService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize; // Import this
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -20,6 +35,15 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductSnapshotService productSnapshotService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
     // MODIFIED: This method now handles multipart form data for creating products
     @PostMapping(consumes = { "multipart/form-data" })
     @PreAuthorize("hasRole('ADMIN')")
@@ -41,29 +65,108 @@ public class ProductController {
         return ResponseEntity.ok(updatedProduct);
     }
 
+    // Bulk import: the body is consumed as a stream, one CSV record or NDJSON line at a time
+    @PostMapping(value = "/import", consumes = { ProductImportService.CSV, ProductImportService.NDJSON })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportResultDTO> importProducts(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) throws IOException {
+        return ResponseEntity.ok(productImportService.importProducts(body, contentType));
+    }
+
+    // Full catalog export, written to the response while the rows are being read
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportProducts(@RequestParam(defaultValue = "ndjson") String format,
+                               HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        response.setContentType((csv ? ProductImportService.CSV : ProductImportService.NDJSON) + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"");
+        productExportService.exportProducts(response.getOutputStream(), csv);
+    }
+
     // You can remove the old separate image upload endpoint if it's no longer needed
     // @PostMapping("/{productId}/images") ...
 
     // --- Other methods remain unchanged ---
 
     @GetMapping("/bestsellers")
-    public ResponseEntity<List<ProductDTO>> getBestsellers() {
-        return ResponseEntity.ok(productService.getBestsellers());
+    public ResponseEntity<byte[]> getBestsellers(@RequestParam(required = false) Integer limit, WebRequest request) {
+        return snapshotResponse(productSnapshotService.getBestsellers(), limit, request);
     }
 
     @GetMapping("/new-arrivals")
-    public ResponseEntity<List<ProductDTO>> getNewArrivals() {
-        return ResponseEntity.ok(productService.getNewArrivals());
+    public ResponseEntity<byte[]> getNewArrivals(@RequestParam(required = false) Integer limit, WebRequest request) {
+        return snapshotResponse(productSnapshotService.getNewArrivals(), limit, request);
+    }
+
+    // Snapshots are already serialized and compressed, so the bytes go out as they are
+    private ResponseEntity<byte[]> snapshotResponse(ProductSnapshot snapshot, Integer limit, WebRequest request) {
+        return CachedResponses.of(snapshot.body(limit), request);
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<CursorPage<ProductListDTO>> getAllProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean bestseller,
+            @RequestParam(required = false) Boolean newArrival,
+            @RequestParam(value = "category", required = false) Long categoryId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        // One cheap aggregate decides whether the listing has to run at all
+        CollectionVersion version = productService.getCatalogVersion();
+        String etag = ETags.of("products", version);
+        if (request.checkNotModified(etag, ETags.millis(version.getLastModified()))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(productService.getAllProducts(search, minPrice, maxPrice, brand,
+                        bestseller, newArrival, categoryId, sort, cursor, size));
+    }
+
+    // Results and facet counts (brands, categories, flags) in one response
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResultDTO> searchProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean bestseller,
+            @RequestParam(required = false) Boolean newArrival,
+            @RequestParam(value = "category", required = false) Long categoryId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.searchProducts(search, minPrice, maxPrice, brand,
+                bestseller, newArrival, categoryId, sort, cursor, size));
+    }
+
+    // Typeahead for the search box, cheap enough to call on every keystroke
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam("q") String query,
+                                                       @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.suggest(query, limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id, WebRequest request) {
+        // Comes from the detail cache, so a revalidation costs neither a query nor serialization
+        ProductDTO product = productService.getProductById(id);
+        String etag = ETags.of("product", id, product.getVersion());
+        if (request.checkNotModified(etag, ETags.millis(product.getUpdatedAt()))) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(product);
     }
 
     @DeleteMapping("/{id}")
@@ -3,6 +3,7 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.ReviewDTO;
 import com.example.demo.model.User;
+import com.example.demo.service.ResponseCache;
 import com.example.demo.service.ReviewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,6 +22,7 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ResponseCache responseCache;
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
@@ -30,8 +33,8 @@ public class ReviewController {
 
     // Other endpoints (get, approve, delete) remain the same...
     @GetMapping("/approved")
-    public ResponseEntity<List<ReviewDTO>> getApprovedReviews() {
-        return ResponseEntity.ok(reviewService.getApprovedReviews());
+    public ResponseEntity<byte[]> getApprovedReviews(WebRequest request) {
+        return CachedResponses.of(responseCache.get(ResponseCache.APPROVED_REVIEWS, reviewService::getApprovedReviews), request);
     }
 
     @GetMapping("/pending")
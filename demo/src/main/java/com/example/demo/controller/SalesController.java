@@ -0,0 +1,61 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.SalesBucketDTO;
+import com.example.demo.dto.SalesTotalDTO;
+import com.example.demo.model.SalesRollup;
+import com.example.demo.sales.SalesRollups;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Sales analytics over [from, to), read from sales_rollup only
+@RestController
+@RequestMapping("/api/sales")
+@RequiredArgsConstructor
+public class SalesController {
+    private static final int MAX_TOP = 100;
+
+    private final SalesRollups salesRollups;
+
+    // One row per hour or day; dimension PRODUCT and CATEGORY need an id
+    @GetMapping("/series")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SalesBucketDTO>> getSeries(@RequestParam(defaultValue = "DAY") SalesRollup.Granularity granularity,
+                                                          @RequestParam(defaultValue = "TOTAL") SalesRollup.Dimension dimension,
+                                                          @RequestParam(required = false) Long id,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        if (dimension != SalesRollup.Dimension.TOTAL && id == null) {
+            throw new IllegalArgumentException("id is required for dimension " + dimension);
+        }
+        return ResponseEntity.ok(salesRollups.series(granularity, dimension, id, from, to));
+    }
+
+    // Best selling products or categories by revenue
+    @GetMapping("/top")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SalesTotalDTO>> getTop(@RequestParam(defaultValue = "DAY") SalesRollup.Granularity granularity,
+                                                      @RequestParam(defaultValue = "PRODUCT") SalesRollup.Dimension dimension,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                      @RequestParam(defaultValue = "10") int limit){
+        if (dimension == SalesRollup.Dimension.TOTAL) {
+            throw new IllegalArgumentException("dimension must be PRODUCT or CATEGORY");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_TOP));
+        return ResponseEntity.ok(salesRollups.top(granularity, dimension, from, to, size));
+    }
+
+    // Recomputes all rollups from the orders, for after a crash or a backfill
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> rebuild(){
+        return ResponseEntity.ok(Map.of("orders", salesRollups.rebuild()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// One row of the cart read: the cart joined with one item and its product.
+// An empty cart comes back as a single row with null item columns.
+@Data
+@AllArgsConstructor
+public class CartLineView {
+    private Long cartId;
+    private Long itemId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CartOperationDTO {
+    public enum Op {
+        SET, // Replace the line's quantity, 0 removes it
+        ADD, // Add to the line's quantity
+        REMOVE // Drop the line
+    }
+
+    @NotNull
+    private Op op;
+
+    @NotNull
+    private Long productId;
+
+    private Integer quantity; // Not used by REMOVE
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CartUpdateRequest {
+    @NotEmpty
+    @Size(max = 100, message = "At most 100 operations per request")
+    private List<@Valid CartOperationDTO> operations;
+}
@@ -20,4 +20,6 @@ public class CategoryDTO {
     private String description;
 
     private String imageUrl; // Add imageUrl field
+
+    private Long productCount; // Filled by the category catalog, ignored on writes
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+public interface CategoryProductCount {
+    Long getCategoryId();
+
+    long getProductCount();
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+// Changes whenever a row of the collection is created, updated or deleted
+public interface CollectionVersion {
+    long getCount();
+    Instant getLastModified();
+}
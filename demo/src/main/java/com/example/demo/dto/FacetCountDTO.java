@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FacetCountDTO {
+    private String value; // What to send back as the filter, e.g. the brand or the category id
+    private String label;
+    private long count;
+}
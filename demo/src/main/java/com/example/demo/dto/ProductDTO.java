@@ -7,6 +7,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -34,4 +35,8 @@ public class ProductDTO {
     private Long categoryId;
 
     private String categoryName;
+
+    // Read only, they drive the ETag / Last-Modified headers of the product page
+    private Long version;
+    private Instant updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Flat view of a product used to feed the in-memory search structures.
+@Data
+@AllArgsConstructor
+public class ProductDocument {
+    private Long id;
+    private String name;
+    private String brand;
+    private String description;
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal price;
+    private Integer quantity;
+    private boolean bestseller;
+    private boolean newArrival;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// One row of the export stream: a product joined with one of its images,
+// so a product with several images spans several consecutive rows.
+@Data
+@AllArgsConstructor
+public class ProductExportRow {
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer quantity;
+    private String brand;
+    private String categoryName;
+    private boolean bestseller;
+    private boolean newArrival;
+    private String image;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductImportResultDTO {
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private List<ImportErrorDTO> errors; // Capped, the counters above are always complete
+    private long durationMs;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// One line of a bulk import, either a CSV record or an NDJSON object
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer quantity;
+    private String brand;
+    private String category; // Category name, resolved through a cached name -> id map
+    private Long categoryId; // Alternatively the id itself
+    private Boolean bestseller;
+    private Boolean newArrival;
+    private List<String> images;
+}
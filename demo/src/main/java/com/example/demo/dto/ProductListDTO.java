@@ -1,27 +1,24 @@
 package com.example.demo.dto;
 
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
 import java.math.BigDecimal;
 
+// Slim row for catalog listings. Built straight from a constructor expression,
+// so the description, the image collection and the comments are never loaded.
 @Data
 @AllArgsConstructor
 public class ProductListDTO {
 
     private Long id;
-    @NotBlank(message = "Name is required")
     private String name;
-    @NotBlank(message = "Description is required")
-    private String description;
-    @Positive(message = "Price must be positive")
     private BigDecimal price;
-    @PositiveOrZero(message = "Qunatity must be positive or zero")
     private Integer quantity;
-    private String image;
-    private String brand; // Added brand
+    private String brand;
+    private String image; // First image only, filled in by a single batched lookup per page
 
-}
\ No newline at end of file
+    public ProductListDTO(Long id, String name, BigDecimal price, Integer quantity, String brand) {
+        this(id, name, price, quantity, brand, null);
+    }
+}
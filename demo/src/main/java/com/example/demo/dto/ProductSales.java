@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+// Units sold per product, summed over order items
+public interface ProductSales {
+    Long getProductId();
+
+    Long getQuantity();
+}
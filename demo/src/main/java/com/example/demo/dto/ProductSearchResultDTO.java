@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductSearchResultDTO {
+    private CursorPage<ProductListDTO> results;
+    private long total;
+    private List<FacetCountDTO> brands;
+    private List<FacetCountDTO> categories;
+    private long bestsellerCount;
+    private long newArrivalCount;
+}
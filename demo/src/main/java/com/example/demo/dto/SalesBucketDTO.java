@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Sales of one hour or day, from sales_rollup
+@Data
+@AllArgsConstructor
+public class SalesBucketDTO {
+    private LocalDateTime bucketStart;
+    private BigDecimal revenue;
+    private long orders;
+    private long units;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Sales of one product or category summed over a range
+@Data
+@AllArgsConstructor
+public class SalesTotalDTO {
+    private Long id;
+    private BigDecimal revenue;
+    private long orders;
+    private long units;
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text;
+    private String type; // PRODUCT, BRAND or CATEGORY
+    private Long id; // Product or category id, null for brands
+}
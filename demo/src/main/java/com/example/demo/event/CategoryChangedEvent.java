@@ -0,0 +1,12 @@
+package com.example.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published by CategoryService when a category is updated, so in-memory views holding its name follow renames
+@Data
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private Long categoryId;
+    private String name;
+}
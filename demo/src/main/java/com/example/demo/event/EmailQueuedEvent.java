@@ -0,0 +1,11 @@
+package com.example.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published when an email is written to the outbox, so delivery can start as soon as it commits
+@Data
+@AllArgsConstructor
+public class EmailQueuedEvent {
+    private Long emailId;
+}
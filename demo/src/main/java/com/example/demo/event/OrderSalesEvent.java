@@ -0,0 +1,23 @@
+package com.example.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Published by OrderService when an order starts or stops counting as a sale: sign 1 when it is
+// placed or taken back from CANCELED, -1 when it is canceled. Carries everything the sales rollups need.
+@Data
+@AllArgsConstructor
+public class OrderSalesEvent {
+
+    public record Line(Long productId, Long categoryId, int quantity, BigDecimal price) {
+    }
+
+    private Long orderId;
+    private LocalDateTime createdAt;
+    private int sign;
+    private List<Line> lines;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published by ProductService for every product write. In-memory views of the catalog
+// listen for it after the transaction commits to keep themselves in sync.
+@Data
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private Long productId;
+    private ChangeType type;
+}
@@ -0,0 +1,15 @@
+package com.example.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collection;
+
+// Published once per batch of stock decrements written straight to product.quantity, so the
+// product caches, indexes and snapshots drop the old quantity. Not a ProductChangedEvent, which
+// would also reload the category catalog and reconcile inventory for every order.
+@Data
+@AllArgsConstructor
+public class ProductStockChangedEvent {
+    private Collection<Long> productIds;
+}
@@ -0,0 +1,11 @@
+package com.example.demo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published once after a bulk import instead of one ProductChangedEvent per row
+@Data
+@AllArgsConstructor
+public class ProductsImportedEvent {
+    private long imported;
+}
@@ -0,0 +1,452 @@
+package com.example.demo.inventory;
+
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.event.ProductStockChangedEvent;
+import com.example.demo.exception.InsufficientStockException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Grants stock in memory so hot products are not serialized on their product row lock.
+ * Available stock lives in {@link StockTable}s split over lock stripes by product id; a reservation
+ * locks only the stripes of its own products, always in stripe order, checks every line and takes
+ * them all or none. Reservations left open longer than inventory.reservations.ttl are returned.
+ * Committed reservations are summed per product and written to product.quantity every
+ * inventory.reservations.flush-ms in one batch, and the counters are reconciled against the table
+ * at startup, every inventory.reservations.reconcile-ms and after each admin product write.
+ * Committed stock not yet written is lost if the process dies, which the next reconciliation
+ * cannot see; keep the flush interval short.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservations.enabled", havingValue = "true")
+public class InventoryReservations {
+    private static final String DECREMENT = "update product " +
+            "set quantity = quantity - ?, version = version + 1, updated_at = ? where id = ?";
+
+    private final Logger logger = LoggerFactory.getLogger(InventoryReservations.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Timer reserveTimer;
+    private final Timer flushTimer;
+    private final Counter granted;
+    private final Counter rejected;
+    private final Counter contended;
+    private final Counter expired;
+    private final Counter late;
+    private final Counter drift;
+
+    @Value("${inventory.reservations.stripes:64}")
+    private int stripeCount;
+
+    @Value("${inventory.reservations.ttl:2m}")
+    private Duration ttl;
+
+    private Stripe[] stripes;
+    private final Map<Long, Reservation> open = new ConcurrentHashMap<>();
+    private final AtomicLong reservationIds = new AtomicLong();
+    // Held by flushes and reconciliations: a reconciliation must never see stock that has left
+    // the pending counters but not yet reached the table
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final StockTable table = new StockTable(64);
+    }
+
+    public InventoryReservations(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                                 TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.reserveTimer = Timer.builder("inventory.reserve")
+                .description("Time to grant or refuse a reservation, lock waits included")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("inventory.flush")
+                .description("Time to write committed reservations to product.quantity")
+                .register(meterRegistry);
+        this.granted = Counter.builder("inventory.reservations").tag("result", "granted").register(meterRegistry);
+        this.rejected = Counter.builder("inventory.reservations").tag("result", "rejected").register(meterRegistry);
+        this.expired = Counter.builder("inventory.reservations").tag("result", "expired").register(meterRegistry);
+        this.late = Counter.builder("inventory.reservations").tag("result", "committed-after-expiry").register(meterRegistry);
+        this.contended = Counter.builder("inventory.lock.contended")
+                .description("Stripe lock acquisitions that had to wait")
+                .register(meterRegistry);
+        this.drift = Counter.builder("inventory.reconcile.drift")
+                .description("Products whose in-memory stock disagreed with the table")
+                .register(meterRegistry);
+        Gauge.builder("inventory.reservations.open", open, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        // A power of two, so the stripe is a mask of the hashed id
+        int count = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes the quantities, keyed by product id, from available stock.
+     * Throws {@link InsufficientStockException} without taking anything if any line cannot be covered.
+     */
+    public Reservation reserve(Map<Long, Integer> quantities) {
+        Timer.Sample sample = Timer.start();
+        try {
+            Map<Long, Integer> lines = new TreeMap<>(quantities);
+            loadMissing(lines.keySet());
+            long[] productIds = new long[lines.size()];
+            int[] amounts = new int[lines.size()];
+            int n = 0;
+            for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+                productIds[n] = line.getKey();
+                amounts[n++] = line.getValue();
+            }
+
+            List<Stripe> locked = lockStripes(productIds);
+            try {
+                for (int i = 0; i < productIds.length; i++) {
+                    StockTable table = stripeOf(productIds[i]).table;
+                    int slot = table.find(productIds[i]);
+                    if (slot < 0 || table.available(slot) < amounts[i]) {
+                        rejected.increment();
+                        throw new InsufficientStockException("Not enough stock for product " + productIds[i]);
+                    }
+                }
+                for (int i = 0; i < productIds.length; i++) {
+                    StockTable table = stripeOf(productIds[i]).table;
+                    int slot = table.find(productIds[i]);
+                    table.addAvailable(slot, -amounts[i]);
+                    table.addHeld(slot, amounts[i]);
+                }
+            } finally {
+                locked.forEach(stripe -> stripe.lock.unlock());
+            }
+
+            Reservation reservation = new Reservation(reservationIds.incrementAndGet(), productIds, amounts,
+                    System.currentTimeMillis() + ttl.toMillis());
+            open.put(reservation.getId(), reservation);
+            granted.increment();
+            return reservation;
+        } finally {
+            sample.stop(reserveTimer);
+        }
+    }
+
+    /** Turns the reservation into a sale, written to product.quantity by the next flush. */
+    public void commit(Reservation reservation) {
+        open.remove(reservation.getId());
+        if (reservation.moveTo(Reservation.COMMITTED)) {
+            apply(reservation, (table, slot, quantity) -> {
+                table.addHeld(slot, -quantity);
+                table.addPending(slot, quantity);
+            });
+        } else if (reservation.state() == Reservation.RELEASED) {
+            // Expired while its transaction was still running, but the order exists: the sale stands,
+            // even if it takes available stock below zero until the next reconciliation
+            late.increment();
+            logger.warn("Reservation {} committed after it expired", reservation.getId());
+            apply(reservation, (table, slot, quantity) -> {
+                table.addAvailable(slot, -quantity);
+                table.addPending(slot, quantity);
+            });
+        }
+    }
+
+    /** Returns the reserved stock. Does nothing if the reservation was already committed or released. */
+    public void release(Reservation reservation) {
+        open.remove(reservation.getId());
+        if (reservation.moveTo(Reservation.RELEASED)) {
+            apply(reservation, (table, slot, quantity) -> {
+                table.addHeld(slot, -quantity);
+                table.addAvailable(slot, quantity);
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservations.expire-check-ms:5000}")
+    public void expireReservations() {
+        long now = System.currentTimeMillis();
+        for (Reservation reservation : open.values()) {
+            if (reservation.expiresAt() < now && reservation.state() == Reservation.HELD) {
+                release(reservation);
+                expired.increment();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservations.flush-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushTimer.record(this::writePending);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcileAll();
+    }
+
+    /**
+     * Resets every counter to what the table says is left: stored quantity minus stock held by open
+     * reservations and sales not yet written. Products gone from the table are dropped.
+     */
+    @Scheduled(initialDelayString = "${inventory.reservations.reconcile-ms:300000}",
+            fixedDelayString = "${inventory.reservations.reconcile-ms:300000}")
+    public void reconcileAll() {
+        long start = System.currentTimeMillis();
+        flushLock.lock();
+        try {
+            List<Map<Long, Integer>> stored = new ArrayList<>(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                stored.add(new HashMap<>());
+            }
+            jdbcTemplate.query("select id, quantity from product", (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id");
+                stored.get(stripeIndex(id)).put(id, rs.getInt("quantity"));
+            });
+            int drifted = 0;
+            int products = 0;
+            for (int i = 0; i < stripes.length; i++) {
+                Stripe stripe = stripes[i];
+                lock(stripe);
+                try {
+                    drifted += reconcile(stripe.table, stored.get(i));
+                    products += stripe.table.size();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            logger.info("Reconciled stock of {} products in {} ms, {} had drifted",
+                    products, System.currentTimeMillis() - start, drifted);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Admin edits set quantity outright, so the counters of that product are recomputed from it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        long productId = event.getProductId();
+        flushLock.lock();
+        try {
+            List<Integer> quantity = jdbcTemplate.queryForList(
+                    "select quantity from product where id = ?", Integer.class, productId);
+            Stripe stripe = stripeOf(productId);
+            lock(stripe);
+            try {
+                if (quantity.isEmpty()) {
+                    stripe.table.remove(productId);
+                } else {
+                    int slot = stripe.table.insert(productId);
+                    int value = quantity.get(0) == null ? 0 : quantity.get(0);
+                    stripe.table.setAvailable(slot, value - stripe.table.held(slot) - stripe.table.pending(slot));
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Called with the stripe locked; returns how many products had a different available count
+    private int reconcile(StockTable table, Map<Long, Integer> stored) {
+        int drifted = 0;
+        List<Long> gone = new ArrayList<>();
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            long productId = table.key(slot);
+            if (productId != 0 && !stored.containsKey(productId)) {
+                gone.add(productId);
+            }
+        }
+        gone.forEach(table::remove);
+        for (Map.Entry<Long, Integer> product : stored.entrySet()) {
+            int slot = table.insert(product.getKey());
+            int quantity = product.getValue() == null ? 0 : product.getValue();
+            int expected = quantity - table.held(slot) - table.pending(slot);
+            if (table.available(slot) != expected) {
+                table.setAvailable(slot, expected);
+                drifted++;
+            }
+        }
+        if (drifted > 0) {
+            drift.increment(drifted);
+        }
+        return drifted;
+    }
+
+    private void writePending() {
+        List<long[]> sales = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            lock(stripe);
+            try {
+                StockTable table = stripe.table;
+                for (int slot = 0; slot < table.capacity(); slot++) {
+                    if (table.key(slot) != 0 && table.pending(slot) > 0) {
+                        sales.add(new long[]{table.key(slot), table.pending(slot)});
+                        table.addPending(slot, -table.pending(slot));
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (sales.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(DECREMENT,
+                    sales.stream().map(sale -> new Object[]{sale[1], now, sale[0]}).toList()));
+            logger.debug("Wrote stock of {} products", sales.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to write stock of {} products, will retry", sales.size(), e);
+            for (long[] sale : sales) {
+                Stripe stripe = stripeOf(sale[0]);
+                lock(stripe);
+                try {
+                    int slot = stripe.table.find(sale[0]);
+                    if (slot >= 0) {
+                        stripe.table.addPending(slot, (int) sale[1]);
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            return;
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(sales.stream().map(sale -> sale[0]).toList()));
+    }
+
+    // Products seen for the first time are read from the table before any stripe is locked
+    private void loadMissing(Iterable<Long> productIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Stripe stripe = stripeOf(productId);
+            lock(stripe);
+            try {
+                if (stripe.table.find(productId) < 0) {
+                    missing.add(productId);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.query("select id, quantity from product where id in (:ids)", Map.of("ids", missing),
+                (RowCallbackHandler) rs -> {
+                    long productId = rs.getLong("id");
+                    int quantity = rs.getInt("quantity");
+                    Stripe stripe = stripeOf(productId);
+                    lock(stripe);
+                    try {
+                        // Another thread may have loaded it meanwhile, its counters win
+                        if (stripe.table.find(productId) < 0) {
+                            stripe.table.setAvailable(stripe.table.insert(productId), quantity);
+                        }
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+                });
+    }
+
+    private interface LineUpdate {
+        void apply(StockTable table, int slot, int quantity);
+    }
+
+    private void apply(Reservation reservation, LineUpdate update) {
+        long[] productIds = reservation.productIds();
+        int[] quantities = reservation.quantities();
+        List<Stripe> locked = lockStripes(productIds);
+        try {
+            for (int i = 0; i < productIds.length; i++) {
+                StockTable table = stripeOf(productIds[i]).table;
+                int slot = table.find(productIds[i]);
+                if (slot >= 0) { // Gone if the product was deleted meanwhile
+                    update.apply(table, slot, quantities[i]);
+                }
+            }
+        } finally {
+            locked.forEach(stripe -> stripe.lock.unlock());
+        }
+    }
+
+    // Always in stripe order, so two reservations sharing stripes cannot deadlock
+    private List<Stripe> lockStripes(long[] productIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (long productId : productIds) {
+            indexes.add(stripeIndex(productId));
+        }
+        List<Stripe> locked = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            lock(stripes[index]);
+            locked.add(stripes[index]);
+        }
+        return locked;
+    }
+
+    private void lock(Stripe stripe) {
+        if (!stripe.lock.tryLock()) {
+            contended.increment();
+            stripe.lock.lock();
+        }
+    }
+
+    private Stripe stripeOf(long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    // High bits of the hash, the table slots use the low ones
+    private int stripeIndex(long productId) {
+        return (int) (StockTable.mix(productId) >>> 40) & (stripes.length - 1);
+    }
+}
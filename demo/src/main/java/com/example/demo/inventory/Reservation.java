@@ -0,0 +1,51 @@
+package com.example.demo.inventory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock held in memory for one order until its transaction completes.
+ * Exactly one of commit, release or expiry wins the state change, so stock is never
+ * returned twice or taken twice for the same reservation.
+ */
+public final class Reservation {
+    static final int HELD = 0;
+    static final int COMMITTED = 1;
+    static final int RELEASED = 2;
+
+    private final long id;
+    private final long[] productIds;
+    private final int[] quantities;
+    private final long expiresAt;
+    private final AtomicInteger state = new AtomicInteger(HELD);
+
+    Reservation(long id, long[] productIds, int[] quantities, long expiresAt) {
+        this.id = id;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    long[] productIds() {
+        return productIds;
+    }
+
+    int[] quantities() {
+        return quantities;
+    }
+
+    long expiresAt() {
+        return expiresAt;
+    }
+
+    boolean moveTo(int newState) {
+        return state.compareAndSet(HELD, newState);
+    }
+
+    int state() {
+        return state.get();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.inventory;
+
+/**
+ * Stock counters keyed by product id, in open-addressing primitive arrays: no boxing and no node per
+ * product. Three counters per product: available to reserve, held by open reservations, and
+ * committed but not yet written to product.quantity.
+ * Not thread safe: {@link InventoryReservations} guards every table with its stripe's lock.
+ */
+final class StockTable {
+    private static final long FREE = 0; // Product ids start at 1
+
+    private long[] keys;
+    private int[] available;
+    private int[] held;
+    private int[] pending;
+    private int size;
+
+    StockTable(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2;
+        keys = new long[slots];
+        available = new int[slots];
+        held = new int[slots];
+        pending = new int[slots];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Slot of the product, or -1. */
+    int find(long productId) {
+        int mask = keys.length - 1;
+        for (int i = slotOf(productId, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == productId) {
+                return i;
+            }
+            if (keys[i] == FREE) {
+                return -1;
+            }
+        }
+    }
+
+    /** Slot of the product, added with all counters at zero if missing. */
+    int insert(long productId) {
+        int slot = find(productId);
+        if (slot >= 0) {
+            return slot;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = slotOf(productId, mask);
+        while (keys[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = productId;
+        available[i] = 0;
+        held[i] = 0;
+        pending[i] = 0;
+        size++;
+        return i;
+    }
+
+    void remove(long productId) {
+        int slot = find(productId);
+        if (slot < 0) {
+            return;
+        }
+        // Backward shift instead of tombstones, so probe chains never degrade
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int i = (gap + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            int home = slotOf(keys[i], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                move(i, gap);
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+        size--;
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int available(int slot) {
+        return available[slot];
+    }
+
+    int held(int slot) {
+        return held[slot];
+    }
+
+    int pending(int slot) {
+        return pending[slot];
+    }
+
+    void addAvailable(int slot, int delta) {
+        available[slot] += delta;
+    }
+
+    void addHeld(int slot, int delta) {
+        held[slot] += delta;
+    }
+
+    void addPending(int slot, int delta) {
+        pending[slot] += delta;
+    }
+
+    void setAvailable(int slot, int value) {
+        available[slot] = value;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        available[to] = available[from];
+        held[to] = held[from];
+        pending[to] = pending[from];
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldAvailable = available;
+        int[] oldHeld = held;
+        int[] oldPending = pending;
+        keys = new long[oldKeys.length * 2];
+        available = new int[keys.length];
+        held = new int[keys.length];
+        pending = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == FREE) {
+                continue;
+            }
+            int i = slotOf(oldKeys[j], mask);
+            while (keys[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            available[i] = oldAvailable[j];
+            held[i] = oldHeld[j];
+            pending[i] = oldPending[j];
+        }
+    }
+
+    // Ids are sequential, so they are scrambled before masking to spread neighbours apart
+    static int slotOf(long productId, int mask) {
+        return (int) mix(productId) & mask;
+    }
+
+    static long mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
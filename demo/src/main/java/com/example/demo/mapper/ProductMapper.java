@@ -14,6 +14,8 @@ public interface ProductMapper {
     ProductDTO toDTO(Product product);
 
     @Mapping(target = "category", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     Product toEntity(ProductDTO productDTO);
 
     @Mapping(target = "userId", source = "user.id")
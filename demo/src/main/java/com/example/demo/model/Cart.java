@@ -5,10 +5,12 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_cart_updated_at", columnList = "updated_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,10 +20,21 @@ public class Cart {
     private Long id;
 
     @OneToOne
-    @JoinColumn(name="user_id", nullable = false)
+    @JoinColumn(name="user_id", nullable = false, unique = true)
     private User user;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> items = new ArrayList<>();
 
+    // Last change to the cart or any of its items, set by the cart stores; CartSweeper expires on it.
+    // Item writes do not dirty this row, so @UpdateTimestamp would not see them.
+    @Column(name = "updated_at", columnDefinition = "datetime(6) default current_timestamp(6)")
+    private Instant updatedAt;
+
+    public Cart(Long id, User user, List<CartItem> items) {
+        this.id = id;
+        this.user = user;
+        this.items = items;
+        this.updatedAt = Instant.now();
+    }
 }
@@ -4,12 +4,31 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Only one bag collection can be join-fetched per query, so the graph takes the images
+// and leaves the comments to batch fetching below.
+@NamedEntityGraph(name = "Product.detail", attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("images")
+})
+@Table(indexes = {
+        // Back the keyset pagination on (price, id) and (name, id)
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_name_id", columnList = "name, id"),
+        // Same keysets within a category, for /api/categories/{id}/products
+        @Index(name = "idx_product_category_id", columnList = "category_id, id"),
+        @Index(name = "idx_product_category_price_id", columnList = "category_id, price, id"),
+        @Index(name = "idx_product_category_name_id", columnList = "category_id, name, id"),
+        @Index(name = "idx_product_updated_at", columnList = "updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,7 +45,10 @@ public class Product {
     private BigDecimal price;
     private Integer quantity;
 
+    // image_order keeps the images in the order they were given; images[0] is the list thumbnail
     @ElementCollection
+    @OrderColumn(name = "image_order")
+    @BatchSize(size = 50)
     private List<String> images = new ArrayList<>();
 
     private String brand;
@@ -34,9 +56,18 @@ public class Product {
     private boolean newArrival; // Added for new arrivals
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<Comment> comments = new ArrayList<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
+
+    // Bumped by Hibernate on every update, used for optimistic locking and as the ETag
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @UpdateTimestamp
+    private Instant updatedAt;
 }
\ No newline at end of file
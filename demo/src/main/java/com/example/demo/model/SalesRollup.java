@@ -0,0 +1,58 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Sales of one hour or day, for one product, one category or the whole shop (dimension_id 0).
+// Maintained by SalesRollups; canceled orders are not counted.
+@Entity
+@Table(name = "sales_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollup_bucket",
+                columnNames = {"granularity", "dimension", "dimension_id", "bucket_start"}),
+        // Rankings over a range read every dimension id of a granularity
+        indexes = @Index(name = "idx_sales_rollup_range", columnList = "granularity, dimension, bucket_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Granularity granularity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Dimension dimension;
+
+    @Column(name = "dimension_id", nullable = false)
+    private long dimensionId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    // Orders containing the product or category, or all orders for TOTAL
+    @Column(nullable = false)
+    private long orders;
+
+    @Column(nullable = false)
+    private long units;
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+
+    public enum Dimension {
+        TOTAL, PRODUCT, CATEGORY
+    }
+}
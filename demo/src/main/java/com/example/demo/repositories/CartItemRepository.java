@@ -0,0 +1,19 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+    // Adds to the line for the product, creating it if needed, in one statement. The select only
+    // yields a row when the product exists and has the stock, so 0 updated rows means rejected.
+    // Clears the persistence context, a cart loaded earlier in the transaction would be stale.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "insert into cart_item (cart_id, product_id, quantity) " +
+            "select :cartId, p.id, :quantity from product p where p.id = :productId and p.quantity >= :quantity " +
+            "on duplicate key update quantity = cart_item.quantity + :quantity", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId, @Param("quantity") int quantity);
+}
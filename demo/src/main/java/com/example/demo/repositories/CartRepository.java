@@ -1,11 +1,35 @@
 package com.example.demo.repositories;
 
 
+import com.example.demo.dto.CartLineView;
 import com.example.demo.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
+
+    // For item writes that bypass the Cart entity
+    @Modifying
+    @Query("update Cart c set c.updatedAt = :updatedAt where c.id = :id")
+    int touch(@Param("id") Long id, @Param("updatedAt") Instant updatedAt);
+
+    @Query("select c.id from Cart c where c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // Read side of GET /api/cart: only the columns the DTO needs, in a single statement
+    @Query("select new com.example.demo.dto.CartLineView(c.id, i.id, p.id, p.name, i.quantity) " +
+            "from Cart c left join c.items i left join i.product p where c.user.id = :userId order by i.id")
+    List<CartLineView> findLinesByUserId(@Param("userId") Long userId);
+
+    // Cart, user, items and their products in a single statement
+    @Query("select distinct c from Cart c join fetch c.user left join fetch c.items i left join fetch i.product " +
+            "where c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
 }
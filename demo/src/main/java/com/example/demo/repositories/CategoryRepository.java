@@ -1,9 +1,17 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dto.CategoryProductCount;
 import com.example.demo.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    // Product counts for every category in one grouped query
+    @Query("select p.category.id as categoryId, count(p) as productCount from Product p group by p.category.id")
+    List<CategoryProductCount> countProductsByCategory();
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package com.example.demo.repositories;
 
 import com.example.demo.model.Comment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByProductId(Long productId);
 
     // --- ADD THIS LINE ---
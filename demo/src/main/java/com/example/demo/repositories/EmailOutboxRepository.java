@@ -0,0 +1,8 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    long countByStatus(EmailOutbox.Status status);
+}
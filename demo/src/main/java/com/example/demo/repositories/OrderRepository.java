@@ -1,13 +1,31 @@
 // src/main/java/com/example/demo/repositories/OrderRepository.java
 package com.example.demo.repositories;
 
+import com.example.demo.dto.ProductSales;
 import com.example.demo.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderRepositoryCustom {
     List<Order> findByUserId(Long userId);
 
     // Check if any orders exist for a given user ID
     boolean existsByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Popularity weights for the typeahead
+    @Query("select i.product.id as productId, sum(i.quantity) as quantity from OrderItem i " +
+            "where i.order.status <> :excluded group by i.product.id")
+    List<ProductSales> findProductSales(@Param("excluded") Order.OrderStatus excluded);
+
+    @Query("select coalesce(sum(i.quantity), 0) from OrderItem i " +
+            "where i.product.id = :productId and i.order.status <> :excluded")
+    long sumQuantityByProductId(@Param("productId") Long productId, @Param("excluded") Order.OrderStatus excluded);
+
+    // One statement for a whole page: the orders with their items and the items' products
+    @Query("select distinct o from Order o left join fetch o.items i left join fetch i.product where o.id in :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") List<Long> ids);
+}
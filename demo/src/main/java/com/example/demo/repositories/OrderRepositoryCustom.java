@@ -0,0 +1,13 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    // Ids only, so a page is read from the index without loading any order row
+    List<Long> findIds(Specification<Order> spec, Sort sort, int limit);
+}
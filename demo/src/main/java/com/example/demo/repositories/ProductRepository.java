@@ -1,21 +1,81 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dto.CollectionVersion;
+import com.example.demo.dto.ProductDocument;
+import com.example.demo.dto.ProductExportRow;
+import com.example.demo.dto.ProductName;
 import com.example.demo.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
     // --- MODIFIED START ---
     // The invalid custom @Query annotations have been removed.
     // Spring Data JPA will create the necessary queries from the method names.
 
-    Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
-
     Page<Product> findByBestsellerIsTrue(Pageable pageable);
 
     Page<Product> findByNewArrivalIsTrue(Pageable pageable);
     // --- MODIFIED END ---
-}
\ No newline at end of file
+
+    // Product page: category and images in one statement, comments (with their users) in one batch
+    @EntityGraph("Product.detail")
+    Optional<Product> findDetailById(Long id);
+
+    // Feeds for the in-memory search structures, walked in id order
+    @Query("select new com.example.demo.dto.ProductDocument(p.id, p.name, p.brand, p.description, c.id, c.name, " +
+            "p.price, p.quantity, p.bestseller, p.newArrival) " +
+            "from Product p join p.category c where p.id > :afterId order by p.id")
+    List<ProductDocument> findDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.example.demo.dto.ProductDocument(p.id, p.name, p.brand, p.description, c.id, c.name, " +
+            "p.price, p.quantity, p.bestseller, p.newArrival) " +
+            "from Product p join p.category c where p.id = :id")
+    Optional<ProductDocument> findDocumentById(@Param("id") Long id);
+
+    @Query("select p.quantity from Product p where p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    @Query("select p.id as id, p.name as name from Product p where p.id in :ids")
+    List<ProductName> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct p.category.id from Product p where p.id in :ids and p.category is not null")
+    List<Long> findCategoryIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select count(p) as count, max(p.updatedAt) as lastModified from Product p")
+    CollectionVersion findCollectionVersion();
+
+    // Full catalog export. A fetch size of Integer.MIN_VALUE makes MySQL stream the result
+    // row by row instead of buffering it; images are joined in so no other statement has to
+    // run on the connection while the stream is open. Must be consumed inside a transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.demo.dto.ProductExportRow(p.id, p.name, p.description, p.price, p.quantity, " +
+            "p.brand, c.name, p.bestseller, p.newArrival, i) " +
+            "from Product p join p.category c left join p.images i order by p.id, index(i)")
+    Stream<ProductExportRow> streamExportRows();
+
+    // For writes to child rows (comments) that must still change the product's ETag. A plain
+    // increment, so it never conflicts with concurrent stock updates or edits of the product
+    @Modifying
+    @Query("update Product p set p.version = p.version + 1, p.updatedAt = :now where p.id = :id")
+    int incrementVersion(@Param("id") Long id, @Param("now") Instant now);
+}
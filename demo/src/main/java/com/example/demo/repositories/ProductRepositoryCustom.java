@@ -0,0 +1,14 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    // Slim listing projection. A null limit means no limit.
+    List<ProductListDTO> findListView(Specification<Product> spec, Sort sort, Integer limit);
+}
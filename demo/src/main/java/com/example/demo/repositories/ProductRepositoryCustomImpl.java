@@ -0,0 +1,71 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductListDTO> findListView(Specification<Product> spec, Sort sort, Integer limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductListDTO> query = criteriaBuilder.createQuery(ProductListDTO.class);
+        Root<Product> root = query.from(Product.class);
+
+        query.select(criteriaBuilder.construct(ProductListDTO.class,
+                root.get("id"), root.get("name"), root.get("price"), root.get("quantity"), root.get("brand")));
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+
+        TypedQuery<ProductListDTO> typedQuery = entityManager.createQuery(query);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+        List<ProductListDTO> rows = typedQuery.getResultList();
+        fillFirstImages(rows);
+        return rows;
+    }
+
+    // One query for the whole page instead of initializing the images collection per product,
+    // reading only the image at position 0 of each.
+    private void fillFirstImages(List<ProductListDTO> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Long> ids = rows.stream().map(ProductListDTO::getId).collect(Collectors.toList());
+        List<Object[]> images = entityManager.createQuery(
+                        "select p.id, i from Product p join p.images i where p.id in :ids and index(i) = 0", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        Map<Long, String> firstImages = new HashMap<>();
+        for (Object[] image : images) {
+            firstImages.put((Long) image[0], (String) image[1]);
+        }
+        rows.forEach(row -> row.setImage(firstImages.get(row.getId())));
+    }
+}
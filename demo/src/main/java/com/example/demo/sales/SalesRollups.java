@@ -0,0 +1,278 @@
+package com.example.demo.sales;
+
+import com.example.demo.dto.SalesBucketDTO;
+import com.example.demo.dto.SalesTotalDTO;
+import com.example.demo.event.OrderSalesEvent;
+import com.example.demo.model.SalesRollup.Dimension;
+import com.example.demo.model.SalesRollup.Granularity;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hourly and daily sales per product, per category and in total, in sales_rollup.
+ * Committed orders and cancellations are turned into deltas in memory and added to the table in
+ * one batch of upserts every sales.rollup.flush-ms, so checkouts never wait on the hot total row.
+ * Deltas not yet flushed are lost if the process dies; {@link #rebuild()} recomputes everything
+ * from the orders, and is meant for that and for backfills rather than routine use.
+ */
+@Component
+public class SalesRollups {
+    private static final String UPSERT = "insert into sales_rollup " +
+            "(granularity, dimension, dimension_id, bucket_start, revenue, orders, units) values (?, ?, ?, ?, ?, ?, ?) " +
+            "on duplicate key update revenue = revenue + values(revenue), orders = orders + values(orders), " +
+            "units = units + values(units)";
+    private static final Comparator<Key> KEY_ORDER = Comparator
+            .comparing(Key::granularity)
+            .thenComparing(Key::dimension)
+            .thenComparingLong(Key::dimensionId)
+            .thenComparing(Key::bucketStart);
+
+    private final Logger logger = LoggerFactory.getLogger(SalesRollups.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${sales.rollup.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private record Key(Granularity granularity, Dimension dimension, long dimensionId, LocalDateTime bucketStart) {
+    }
+
+    private record Delta(BigDecimal revenue, long orders, long units) {
+        Delta plus(Delta other) {
+            return new Delta(revenue.add(other.revenue), orders + other.orders, units + other.units);
+        }
+    }
+
+    // Order ids a running rebuild has still to read, (after, upTo]; their current status is what it counts
+    private record ScanRange(long after, long upTo) {
+        static final ScanRange NONE = new ScanRange(0, 0);
+
+        boolean contains(long orderId) {
+            return orderId > after && orderId <= upTo;
+        }
+    }
+
+    private final Map<Key, Delta> pending = new ConcurrentHashMap<>();
+    private volatile ScanRange unscanned = ScanRange.NONE;
+    // Flushes and rebuilds never overlap, a rebuild must not have deltas land in a table it is clearing
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public SalesRollups(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderSales(OrderSalesEvent event) {
+        // The rebuild will read this order as it is now, a delta on top would count the change twice
+        if (event.getOrderId() != null && unscanned.contains(event.getOrderId())) {
+            return;
+        }
+        deltasOf(event.getCreatedAt(), event.getSign(), event.getLines())
+                .forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+    }
+
+    @Scheduled(fixedDelayString = "${sales.rollup.flush-ms:2000}")
+    public void flush() {
+        // A rebuild holds the lock for as long as it runs; skip this tick rather than stall a scheduler thread
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            Map<Key, Delta> batch = new HashMap<>();
+            for (Key key : pending.keySet()) {
+                Delta delta = pending.remove(key);
+                if (delta != null) {
+                    batch.put(key, delta);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsert(batch));
+            } catch (RuntimeException e) {
+                logger.error("Failed to write {} sales rollup deltas, will retry", batch.size(), e);
+                batch.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Waits for a running rebuild, then writes what is left
+        flushLock.lock();
+        try {
+            flush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes every rollup from the orders that are not canceled, walking the orders by id in
+     * batches of sales.rollup.rebuild-batch-size, each batch written in its own transaction.
+     * Range queries see partial totals until it returns. Changes to orders the scan has already
+     * read, and orders placed after it started, are left to their deltas; changes to orders it has
+     * yet to read are dropped, as the scan sees them. Returns the number of orders read.
+     */
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        flushLock.lock();
+        try {
+            // Deltas waiting here, and any arriving before maxId is read, are for orders already
+            // committed, which the scan below counts. Orders past maxId commit after that and are
+            // counted by their deltas alone
+            unscanned = new ScanRange(0, Long.MAX_VALUE);
+            pending.clear();
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from orders", Long.class);
+            unscanned = new ScanRange(0, maxId);
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update("delete from sales_rollup limit 10000");
+            } while (deleted == 10000);
+
+            long lastId = 0;
+            long orders = 0;
+            while (true) {
+                // A batch is bounded by order count: the ids first, then the items of those orders
+                List<Long> ids = jdbcTemplate.queryForList("select id from orders where id > ? and id <= ? " +
+                        "and status <> 'CANCELED' order by id limit ?", Long.class, lastId, maxId, rebuildBatchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Map<Long, LocalDateTime> createdAt = new HashMap<>();
+                Map<Long, List<OrderSalesEvent.Line>> lines = new HashMap<>();
+                jdbcTemplate.query("select o.id, o.created_at, i.product_id, p.category_id, i.quantity, i.price " +
+                                "from orders o join order_item i on i.order_id = o.id " +
+                                "left join product p on p.id = i.product_id " +
+                                "where o.id between ? and ? and o.status <> 'CANCELED'",
+                        (RowCallbackHandler) rs -> {
+                            long orderId = rs.getLong("id");
+                            createdAt.putIfAbsent(orderId, rs.getTimestamp("created_at").toLocalDateTime());
+                            lines.computeIfAbsent(orderId, id -> new ArrayList<>()).add(new OrderSalesEvent.Line(
+                                    rs.getLong("product_id"), rs.getObject("category_id", Long.class),
+                                    rs.getInt("quantity"), rs.getBigDecimal("price")));
+                        },
+                        ids.get(0), ids.get(ids.size() - 1));
+                lastId = ids.get(ids.size() - 1);
+                unscanned = new ScanRange(lastId, maxId);
+                Map<Key, Delta> batch = new HashMap<>();
+                lines.forEach((orderId, orderLines) -> deltasOf(createdAt.get(orderId), 1, orderLines)
+                        .forEach((key, delta) -> batch.merge(key, delta, Delta::plus)));
+                if (!batch.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status -> upsert(batch));
+                }
+                orders += lines.size();
+                if (ids.size() < rebuildBatchSize) {
+                    break;
+                }
+            }
+            logger.info("Rebuilt sales rollups from {} orders in {} ms", orders, System.currentTimeMillis() - start);
+            return orders;
+        } finally {
+            unscanned = ScanRange.NONE;
+            flushLock.unlock();
+        }
+    }
+
+    /** One bucket per hour or day in [from, to), for the total or for one product or category. */
+    public List<SalesBucketDTO> series(Granularity granularity, Dimension dimension, Long dimensionId,
+                                       LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("select bucket_start, revenue, orders, units from sales_rollup " +
+                        "where granularity = ? and dimension = ? and dimension_id = ? " +
+                        "and bucket_start >= ? and bucket_start < ? order by bucket_start",
+                (rs, i) -> new SalesBucketDTO(rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        rs.getBigDecimal("revenue"), rs.getLong("orders"), rs.getLong("units")),
+                granularity.name(), dimension.name(), dimension == Dimension.TOTAL ? 0 : dimensionId,
+                Timestamp.valueOf(truncate(from, granularity)), Timestamp.valueOf(to));
+    }
+
+    /** Products or categories with the most revenue over [from, to), summed from the buckets. */
+    public List<SalesTotalDTO> top(Granularity granularity, Dimension dimension, LocalDateTime from, LocalDateTime to,
+                                   int limit) {
+        return jdbcTemplate.query("select dimension_id, sum(revenue) as revenue, sum(orders) as orders, " +
+                        "sum(units) as units from sales_rollup " +
+                        "where granularity = ? and dimension = ? and bucket_start >= ? and bucket_start < ? " +
+                        "group by dimension_id order by revenue desc limit ?",
+                (rs, i) -> new SalesTotalDTO(rs.getLong("dimension_id"), rs.getBigDecimal("revenue"),
+                        rs.getLong("orders"), rs.getLong("units")),
+                granularity.name(), dimension.name(),
+                Timestamp.valueOf(truncate(from, granularity)), Timestamp.valueOf(to), limit);
+    }
+
+    // Every bucket an order touches: hour and day, for the total, each product and each category.
+    // An order counts once per product and per category however many lines it has there.
+    private static Map<Key, Delta> deltasOf(LocalDateTime createdAt, int sign, List<OrderSalesEvent.Line> lines) {
+        Map<Key, Delta> deltas = new HashMap<>();
+        for (Granularity granularity : Granularity.values()) {
+            LocalDateTime bucket = truncate(createdAt, granularity);
+            BigDecimal orderRevenue = BigDecimal.ZERO;
+            long orderUnits = 0;
+            Map<Long, Delta> products = new HashMap<>();
+            Map<Long, Delta> categories = new HashMap<>();
+            for (OrderSalesEvent.Line line : lines) {
+                BigDecimal revenue = line.price() == null ? BigDecimal.ZERO
+                        : line.price().multiply(BigDecimal.valueOf(line.quantity()));
+                Delta delta = new Delta(revenue, 0, line.quantity());
+                products.merge(line.productId(), delta, Delta::plus);
+                if (line.categoryId() != null) {
+                    categories.merge(line.categoryId(), delta, Delta::plus);
+                }
+                orderRevenue = orderRevenue.add(revenue);
+                orderUnits += line.quantity();
+            }
+            deltas.put(new Key(granularity, Dimension.TOTAL, 0, bucket), signed(new Delta(orderRevenue, 1, orderUnits), sign));
+            products.forEach((id, delta) -> deltas.put(new Key(granularity, Dimension.PRODUCT, id, bucket),
+                    signed(new Delta(delta.revenue(), 1, delta.units()), sign)));
+            categories.forEach((id, delta) -> deltas.put(new Key(granularity, Dimension.CATEGORY, id, bucket),
+                    signed(new Delta(delta.revenue(), 1, delta.units()), sign)));
+        }
+        return deltas;
+    }
+
+    private static Delta signed(Delta delta, int sign) {
+        return sign >= 0 ? delta : new Delta(delta.revenue().negate(), -delta.orders(), -delta.units());
+    }
+
+    // Rows in key order, so concurrent writers lock them in the same order
+    private void upsert(Map<Key, Delta> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(KEY_ORDER))
+                .forEach(entry -> {
+                    Key key = entry.getKey();
+                    Delta delta = entry.getValue();
+                    rows.add(new Object[]{key.granularity().name(), key.dimension().name(), key.dimensionId(),
+                            Timestamp.valueOf(key.bucketStart()), delta.revenue(), delta.orders(), delta.units()});
+                });
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, Granularity granularity) {
+        return granularity == Granularity.HOUR ? time.truncatedTo(ChronoUnit.HOURS) : time.truncatedTo(ChronoUnit.DAYS);
+    }
+}
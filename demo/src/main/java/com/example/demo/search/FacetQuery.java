@@ -0,0 +1,16 @@
+package com.example.demo.search;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class FacetQuery {
+    private String brand;
+    private Long categoryId;
+    private Boolean bestseller;
+    private Boolean newArrival;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private long[] textMatches; // Ids from the text index, null when there is no text search
+}
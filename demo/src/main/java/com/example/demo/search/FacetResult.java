@@ -0,0 +1,20 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.FacetCountDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FacetResult {
+    private final long[] pageIds; // Ids of the requested page, in sort order
+    private final String nextCursor;
+    private final boolean hasNext;
+    private final long total;
+    private final List<FacetCountDTO> brands;
+    private final List<FacetCountDTO> categories;
+    private final long bestsellerCount;
+    private final long newArrivalCount;
+}
@@ -0,0 +1,441 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.FacetCountDTO;
+import com.example.demo.dto.ProductDocument;
+import com.example.demo.specification.KeysetCursor;
+import com.example.demo.specification.ProductSort;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Columnar in-memory index for storefront filtering and facet counts.
+ * Every product gets a dense ordinal; brands, categories and the two flags are one
+ * bitset per value, price, name and id are kept as ordinals sorted by that column.
+ * A query ANDs the bitsets, then walks the candidates once to count every facet and
+ * pick the requested page, so the database only has to hydrate that one page.
+ * Pages are ordered and their cursors encoded the same way as the database listing (NULLs first,
+ * prices as decimal strings, names compared case and accent insensitively like the column's
+ * collation, MySQL 8's default utf8mb4_0900_ai_ci), so a cursor from either path continues on the other.
+ */
+@Component
+public class ProductFacetIndex {
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final Collator NAME_COLLATOR = nameCollator();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns();
+
+    public void index(ProductDocument document) {
+        lock.writeLock().lock();
+        try {
+            columns.put(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            columns.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void renameCategory(long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            columns.renameCategory(categoryId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Rebuild beginRebuild() {
+        return new Rebuild();
+    }
+
+    public class Rebuild {
+        private final Columns newColumns = new Columns();
+
+        public void add(ProductDocument document) {
+            newColumns.put(document);
+        }
+
+        public void publish() {
+            lock.writeLock().lock();
+            try {
+                columns = newColumns;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public FacetResult query(FacetQuery query, ProductSort sort, KeysetCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            return columns.query(query, sort, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    static long toCents(BigDecimal price) {
+        return price == null ? NO_PRICE : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static Collator nameCollator() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+
+    private static CollationKey nameKey(String name) {
+        return name == null ? null : NAME_COLLATOR.getCollationKey(name);
+    }
+
+    // Null names sort first, as NULL does in MySQL
+    private static int compareNames(CollationKey a, CollationKey b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static String brandKey(String brand) {
+        return brand == null ? null : brand.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Columns {
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private long[] ids = new long[256];
+        private long[] prices = new long[256];
+        private String[] names = new String[256];
+        private CollationKey[] nameKeys = new CollationKey[256];
+        private int[] brandOrdinals = new int[256];
+        private int[] categoryOrdinals = new int[256];
+        private int size;
+
+        private final BitSet live = new BitSet();
+        private final BitSet bestsellers = new BitSet();
+        private final BitSet newArrivals = new BitSet();
+
+        private final Map<String, Integer> brandByKey = new HashMap<>();
+        private final List<String> brandLabels = new ArrayList<>();
+        private final List<BitSet> brandBits = new ArrayList<>();
+
+        private final Map<Long, Integer> categoryById = new HashMap<>();
+        private final List<Long> categoryIds = new ArrayList<>();
+        private final List<String> categoryLabels = new ArrayList<>();
+        private final List<BitSet> categoryBits = new ArrayList<>();
+
+        private final SortedOrdinals byId = new SortedOrdinals((a, b) -> Long.compare(ids[a], ids[b]));
+        private final SortedOrdinals byPrice = new SortedOrdinals((a, b) -> {
+            int cmp = Long.compare(prices[a], prices[b]);
+            return cmp != 0 ? cmp : Long.compare(ids[a], ids[b]);
+        });
+        private final SortedOrdinals byName = new SortedOrdinals((a, b) -> {
+            int cmp = compareNames(nameKeys[a], nameKeys[b]);
+            return cmp != 0 ? cmp : Long.compare(ids[a], ids[b]);
+        });
+
+        void put(ProductDocument document) {
+            Integer existing = ordinalById.get(document.getId());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                clear(ordinal);
+            } else {
+                ordinal = size++;
+                ensureCapacity(size);
+                ordinalById.put(document.getId(), ordinal);
+            }
+
+            ids[ordinal] = document.getId();
+            prices[ordinal] = toCents(document.getPrice());
+            names[ordinal] = document.getName();
+            nameKeys[ordinal] = nameKey(document.getName());
+            brandOrdinals[ordinal] = brandOrdinal(document.getBrand());
+            categoryOrdinals[ordinal] = categoryOrdinal(document.getCategoryId(), document.getCategoryName());
+
+            live.set(ordinal);
+            bestsellers.set(ordinal, document.isBestseller());
+            newArrivals.set(ordinal, document.isNewArrival());
+            if (brandOrdinals[ordinal] >= 0) {
+                brandBits.get(brandOrdinals[ordinal]).set(ordinal);
+            }
+            if (categoryOrdinals[ordinal] >= 0) {
+                categoryBits.get(categoryOrdinals[ordinal]).set(ordinal);
+            }
+            byId.insert(ordinal);
+            byPrice.insert(ordinal);
+            byName.insert(ordinal);
+        }
+
+        // The ordinal itself is not recycled, its bits are simply switched off
+        void remove(long productId) {
+            Integer ordinal = ordinalById.remove(productId);
+            if (ordinal != null) {
+                clear(ordinal);
+            }
+        }
+
+        private void clear(int ordinal) {
+            byId.remove(ordinal);
+            byPrice.remove(ordinal);
+            byName.remove(ordinal);
+            live.clear(ordinal);
+            bestsellers.clear(ordinal);
+            newArrivals.clear(ordinal);
+            if (brandOrdinals[ordinal] >= 0) {
+                brandBits.get(brandOrdinals[ordinal]).clear(ordinal);
+            }
+            if (categoryOrdinals[ordinal] >= 0) {
+                categoryBits.get(categoryOrdinals[ordinal]).clear(ordinal);
+            }
+        }
+
+        private int brandOrdinal(String brand) {
+            String key = brandKey(brand);
+            if (key == null || key.isEmpty()) {
+                return -1;
+            }
+            return brandByKey.computeIfAbsent(key, k -> {
+                brandLabels.add(brand.trim());
+                brandBits.add(new BitSet());
+                return brandLabels.size() - 1;
+            });
+        }
+
+        private int categoryOrdinal(Long categoryId, String categoryName) {
+            if (categoryId == null) {
+                return -1;
+            }
+            int ordinal = categoryById.computeIfAbsent(categoryId, id -> {
+                categoryIds.add(id);
+                categoryLabels.add(categoryName);
+                categoryBits.add(new BitSet());
+                return categoryIds.size() - 1;
+            });
+            categoryLabels.set(ordinal, categoryName); // Follow category renames
+            return ordinal;
+        }
+
+        void renameCategory(long categoryId, String name) {
+            Integer ordinal = categoryById.get(categoryId);
+            if (ordinal != null) {
+                categoryLabels.set(ordinal, name);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newLength = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newLength);
+            prices = Arrays.copyOf(prices, newLength);
+            names = Arrays.copyOf(names, newLength);
+            nameKeys = Arrays.copyOf(nameKeys, newLength);
+            brandOrdinals = Arrays.copyOf(brandOrdinals, newLength);
+            categoryOrdinals = Arrays.copyOf(categoryOrdinals, newLength);
+        }
+
+        FacetResult query(FacetQuery query, ProductSort sort, KeysetCursor after, int limit) {
+            BitSet candidates = (BitSet) live.clone();
+            if (Boolean.TRUE.equals(query.getBestseller())) {
+                candidates.and(bestsellers);
+            }
+            if (Boolean.TRUE.equals(query.getNewArrival())) {
+                candidates.and(newArrivals);
+            }
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                candidates.and(priceRange(query.getMinPrice(), query.getMaxPrice()));
+            }
+            if (query.getTextMatches() != null) {
+                candidates.and(bitsOf(query.getTextMatches()));
+            }
+
+            // Brand and category are applied during the counting pass instead, so each facet
+            // can be counted with every filter except its own and the user can still switch value
+            BitSet brandFilter = null;
+            if (query.getBrand() != null && !query.getBrand().isBlank()) {
+                Integer brand = brandByKey.get(brandKey(query.getBrand()));
+                brandFilter = brand == null ? new BitSet() : brandBits.get(brand);
+            }
+            BitSet categoryFilter = null;
+            if (query.getCategoryId() != null) {
+                Integer category = categoryById.get(query.getCategoryId());
+                categoryFilter = category == null ? new BitSet() : categoryBits.get(category);
+            }
+
+            long[] brandCounts = new long[brandLabels.size()];
+            long[] categoryCounts = new long[categoryLabels.size()];
+            long total = 0, bestsellerCount = 0, newArrivalCount = 0;
+            BitSet matches = new BitSet();
+            for (int ordinal = candidates.nextSetBit(0); ordinal >= 0; ordinal = candidates.nextSetBit(ordinal + 1)) {
+                boolean brandOk = brandFilter == null || brandFilter.get(ordinal);
+                boolean categoryOk = categoryFilter == null || categoryFilter.get(ordinal);
+                if (categoryOk && brandOrdinals[ordinal] >= 0) {
+                    brandCounts[brandOrdinals[ordinal]]++;
+                }
+                if (brandOk && categoryOrdinals[ordinal] >= 0) {
+                    categoryCounts[categoryOrdinals[ordinal]]++;
+                }
+                if (brandOk && categoryOk) {
+                    matches.set(ordinal);
+                    total++;
+                    if (bestsellers.get(ordinal)) {
+                        bestsellerCount++;
+                    }
+                    if (newArrivals.get(ordinal)) {
+                        newArrivalCount++;
+                    }
+                }
+            }
+
+            List<FacetCountDTO> brands = new ArrayList<>();
+            for (int i = 0; i < brandCounts.length; i++) {
+                if (brandCounts[i] > 0) {
+                    brands.add(new FacetCountDTO(brandLabels.get(i), brandLabels.get(i), brandCounts[i]));
+                }
+            }
+            List<FacetCountDTO> categories = new ArrayList<>();
+            for (int i = 0; i < categoryCounts.length; i++) {
+                if (categoryCounts[i] > 0) {
+                    categories.add(new FacetCountDTO(String.valueOf(categoryIds.get(i)), categoryLabels.get(i), categoryCounts[i]));
+                }
+            }
+            brands.sort(Comparator.comparingLong(FacetCountDTO::getCount).reversed());
+            categories.sort(Comparator.comparingLong(FacetCountDTO::getCount).reversed());
+
+            return page(matches, sort, after, limit, total, brands, categories, bestsellerCount, newArrivalCount);
+        }
+
+        private FacetResult page(BitSet matches, ProductSort sort, KeysetCursor after, int limit, long total,
+                                 List<FacetCountDTO> brands, List<FacetCountDTO> categories,
+                                 long bestsellerCount, long newArrivalCount) {
+            SortedOrdinals order = switch (sort.getKey()) {
+                case ID -> byId;
+                case PRICE -> byPrice;
+                case NAME -> byName;
+            };
+            boolean ascending = sort.getDirection() == Sort.Direction.ASC;
+            IntUnaryOperator toCursor = after == null ? null : compareToCursor(sort, after);
+
+            int start;
+            if (ascending) {
+                start = toCursor == null ? 0 : order.firstMatching(ordinal -> toCursor.applyAsInt(ordinal) > 0);
+            } else {
+                start = (toCursor == null ? order.size() : order.firstMatching(ordinal -> toCursor.applyAsInt(ordinal) >= 0)) - 1;
+            }
+
+            long[] pageIds = new long[limit];
+            int found = 0;
+            int lastOrdinal = -1;
+            boolean hasNext = false;
+            for (int i = start; ascending ? i < order.size() : i >= 0; i += ascending ? 1 : -1) {
+                int ordinal = order.get(i);
+                if (!matches.get(ordinal)) {
+                    continue;
+                }
+                if (found == limit) {
+                    hasNext = true;
+                    break;
+                }
+                pageIds[found++] = ids[ordinal];
+                lastOrdinal = ordinal;
+            }
+
+            String nextCursor = null;
+            if (hasNext) {
+                nextCursor = new KeysetCursor(sort.getKey().name(), ids[lastOrdinal], cursorValue(sort, lastOrdinal)).encode();
+            }
+            return new FacetResult(Arrays.copyOf(pageIds, found), nextCursor, hasNext, total,
+                    brands, categories, bestsellerCount, newArrivalCount);
+        }
+
+        private IntUnaryOperator compareToCursor(ProductSort sort, KeysetCursor after) {
+            if (!sort.getKey().name().equals(after.getSortKey())) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            long cursorId = after.getId();
+            return switch (sort.getKey()) {
+                case ID -> ordinal -> Long.compare(ids[ordinal], cursorId);
+                case PRICE -> {
+                    long cursorCents = after.getValue() == null ? NO_PRICE : toCents(parsePrice(after.getValue()));
+                    yield ordinal -> {
+                        int cmp = Long.compare(prices[ordinal], cursorCents);
+                        return cmp != 0 ? cmp : Long.compare(ids[ordinal], cursorId);
+                    };
+                }
+                case NAME -> {
+                    CollationKey cursorName = nameKey(after.getValue());
+                    yield ordinal -> {
+                        int cmp = compareNames(nameKeys[ordinal], cursorName);
+                        return cmp != 0 ? cmp : Long.compare(ids[ordinal], cursorId);
+                    };
+                }
+            };
+        }
+
+        private String cursorValue(ProductSort sort, int ordinal) {
+            return switch (sort.getKey()) {
+                case ID -> null;
+                case PRICE -> prices[ordinal] == NO_PRICE ? null : BigDecimal.valueOf(prices[ordinal], 2).toPlainString();
+                case NAME -> names[ordinal];
+            };
+        }
+
+        private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+            long min = minPrice == null ? NO_PRICE + 1 : toCents(minPrice);
+            long max = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice);
+            BitSet range = new BitSet();
+            for (int i = byPrice.firstMatching(ordinal -> prices[ordinal] >= min); i < byPrice.size(); i++) {
+                int ordinal = byPrice.get(i);
+                if (prices[ordinal] > max) {
+                    break;
+                }
+                range.set(ordinal);
+            }
+            return range;
+        }
+
+        private BitSet bitsOf(long[] productIds) {
+            BitSet bits = new BitSet();
+            for (long productId : productIds) {
+                Integer ordinal = ordinalById.get(productId);
+                if (ordinal != null) {
+                    bits.set(ordinal);
+                }
+            }
+            return bits;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.ProductDocument;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.event.ProductStockChangedEvent;
+import com.example.demo.event.ProductsImportedEvent;
+import com.example.demo.model.Order;
+import com.example.demo.repositories.OrderRepository;
+import com.example.demo.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the in-memory product indexes in sync with the database:
+ * a full rebuild at startup, then one document reload per committed product write.
+ * Stock changes from checkouts are collected and reloaded on a schedule instead, off the
+ * checkout's thread and once per product however many orders touched it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductIndexer {
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(ProductIndexer.class);
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final OrderRepository orderRepository;
+
+    // Writes that land while a rebuild is reading the table are replayed once it is published
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuildAll() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            ProductSearchIndex.Rebuild searchRebuild = searchIndex.beginRebuild();
+            ProductFacetIndex.Rebuild facetRebuild = facetIndex.beginRebuild();
+            ProductSuggestIndex.Rebuild suggestRebuild = suggestIndex.beginRebuild();
+            Map<Long, Long> sales = new HashMap<>();
+            orderRepository.findProductSales(Order.OrderStatus.CANCELED)
+                    .forEach(row -> sales.put(row.getProductId(), row.getQuantity()));
+            long lastId = 0;
+            List<ProductDocument> batch;
+            do {
+                batch = productRepository.findDocumentsAfter(lastId, PageRequest.ofSize(BATCH_SIZE));
+                for (ProductDocument document : batch) {
+                    searchRebuild.add(document);
+                    facetRebuild.add(document);
+                    suggestRebuild.add(document, sales.getOrDefault(document.getId(), 0L));
+                    lastId = document.getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            searchRebuild.publish();
+            facetRebuild.publish();
+            suggestRebuild.publish();
+        } finally {
+            rebuilding = false;
+        }
+        changedDuringRebuild.forEach(this::reindex);
+        logger.info("Indexed {} products in {} ms", searchIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.add(event.getProductId());
+        }
+        if (event.getType() == ProductChangedEvent.ChangeType.DELETED) {
+            remove(event.getProductId());
+        } else {
+            reindex(event.getProductId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        stockChanged.addAll(event.getProductIds());
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.stock-refresh-ms:2000}")
+    public void reindexStockChanges() {
+        for (Long productId : stockChanged) {
+            if (stockChanged.remove(productId)) {
+                if (rebuilding) {
+                    changedDuringRebuild.add(productId);
+                }
+                reindex(productId);
+            }
+        }
+    }
+
+    // Synchronized with rebuildAll, so a rebuild that read the old name cannot publish it afterwards
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        suggestIndex.renameCategory(event.getCategoryId(), event.getName());
+        facetIndex.renameCategory(event.getCategoryId(), event.getName());
+    }
+
+    // A bulk import touches too many rows for per-document updates
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        rebuildAll();
+    }
+
+    private void reindex(Long productId) {
+        productRepository.findDocumentById(productId)
+                .ifPresentOrElse(this::index, () -> remove(productId));
+    }
+
+    private void index(ProductDocument document) {
+        searchIndex.index(document);
+        facetIndex.index(document);
+        suggestIndex.index(document,
+                orderRepository.sumQuantityByProductId(document.getId(), Order.OrderStatus.CANCELED));
+    }
+
+    private void remove(Long productId) {
+        searchIndex.remove(productId);
+        facetIndex.remove(productId);
+        suggestIndex.remove(productId);
+    }
+}
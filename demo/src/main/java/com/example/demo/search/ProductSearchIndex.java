@@ -0,0 +1,149 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.ProductDocument;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over product name, brand and description.
+ * Every query token is matched as a prefix of the indexed terms and the
+ * matches of all tokens are intersected, so "hydr cre" finds "Hydrating Cream".
+ */
+@Component
+public class ProductSearchIndex {
+    private static final long[] NO_MATCH = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, LongPostingList> postings = new TreeMap<>();
+    // Forward index so that an update or delete can remove the old terms
+    private Map<Long, Set<String>> termsByProduct = new HashMap<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(ProductDocument document) {
+        Set<String> terms = termsOf(document);
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.getId());
+            addLocked(postings, document.getId(), terms);
+            termsByProduct.put(document.getId(), terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Builds a fresh index off to the side and swaps it in on publish, searches keep running meanwhile
+    public Rebuild beginRebuild() {
+        return new Rebuild();
+    }
+
+    public class Rebuild {
+        private final TreeMap<String, LongPostingList> newPostings = new TreeMap<>();
+        private final Map<Long, Set<String>> newTerms = new HashMap<>();
+
+        public void add(ProductDocument document) {
+            Set<String> terms = termsOf(document);
+            addLocked(newPostings, document.getId(), terms);
+            newTerms.put(document.getId(), terms);
+        }
+
+        public void publish() {
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                termsByProduct = newTerms;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Sorted ids of the products matching every token of the query. */
+    public long[] search(String query) {
+        Set<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return NO_MATCH;
+        }
+        lock.readLock().lock();
+        try {
+            long[] result = null;
+            for (String token : tokens) {
+                long[] matches = prefixMatches(token);
+                result = result == null ? matches : LongPostingList.intersect(result, matches);
+                if (result.length == 0) {
+                    return NO_MATCH;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] prefixMatches(String prefix) {
+        NavigableMap<String, LongPostingList> terms = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        long[] merged = NO_MATCH;
+        for (LongPostingList list : terms.values()) {
+            merged = LongPostingList.union(merged, list.toArray());
+        }
+        return merged;
+    }
+
+    private void removeLocked(long productId) {
+        Set<String> oldTerms = termsByProduct.remove(productId);
+        if (oldTerms == null) {
+            return;
+        }
+        for (String term : oldTerms) {
+            LongPostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(productId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addLocked(Map<String, LongPostingList> target, long productId, Set<String> terms) {
+        for (String term : terms) {
+            target.computeIfAbsent(term, t -> new LongPostingList()).add(productId);
+        }
+    }
+
+    private static Set<String> termsOf(ProductDocument document) {
+        Set<String> terms = Tokenizer.tokenize(document.getName());
+        terms.addAll(Tokenizer.tokenize(document.getBrand()));
+        terms.addAll(Tokenizer.tokenize(document.getDescription()));
+        return terms;
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.demo.search;
+
+import com.example.demo.dto.ProductDocument;
+import com.example.demo.dto.SuggestionDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over product names, brands and category names.
+ * A character trie where every node keeps its best {@link #TOP_K} completions,
+ * so a lookup is a walk down the prefix and a copy of that list, independent of catalog size.
+ * Every phrase is also reachable from each of its words ("galaxy" completes "Samsung Galaxy S21").
+ * Products are weighted by units sold; a brand or category by the sum of its products' weights
+ * plus one per product, so large brands still surface before any sales exist.
+ */
+@Component
+public class ProductSuggestIndex {
+    public static final int TOP_K = 10;
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> -e.weight)
+            .thenComparingInt(e -> e.text.length())
+            .thenComparing(e -> e.text);
+
+    enum Type { PRODUCT, BRAND, CATEGORY }
+
+    private static final class Entry {
+        final Type type;
+        final String text;
+        final Long id;
+        final Set<String> keys;
+        long weight;
+        int products; // Brands and categories: how many products refer to them
+        // Products only: the groups their weight was added to
+        String brandKey;
+        Long categoryId;
+
+        Entry(Type type, String text, Long id) {
+            this.type = type;
+            this.text = text;
+            this.id = id;
+            this.keys = keysOf(text);
+        }
+    }
+
+    // Children are kept in parallel arrays sorted by label, which is far lighter than a map per node
+    private static final class Node {
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        Entry[] terminals = NO_ENTRIES; // Entries with a key ending here
+        Entry[] top = NO_ENTRIES; // Best completions in this subtree
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i < 0 ? null : children[i];
+        }
+
+        Node addChild(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            Node node = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = label;
+            newChildren[at] = node;
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at + 1, newLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+    }
+
+    /** The trie plus the entries it holds, swapped as a whole by a rebuild. */
+    private static final class Trie {
+        final Node root = new Node();
+        final Map<Long, Entry> products = new HashMap<>();
+        final Map<String, Entry> brands = new HashMap<>();
+        final Map<Long, Entry> categories = new HashMap<>();
+
+        // Registers the product and its weight with its brand and category.
+        // Returns every entry whose keys or weight changed.
+        List<Entry> addProduct(ProductDocument document, long popularity) {
+            List<Entry> changed = new ArrayList<>();
+            Entry product = new Entry(Type.PRODUCT, document.getName(), document.getId());
+            if (product.keys.isEmpty()) {
+                return changed;
+            }
+            product.weight = popularity;
+            products.put(product.id, product);
+            insert(product);
+            changed.add(product);
+
+            String brandKey = Tokenizer.normalize(document.getBrand());
+            if (!brandKey.isEmpty()) {
+                Entry brand = brands.get(brandKey);
+                if (brand == null) {
+                    brand = new Entry(Type.BRAND, document.getBrand().trim(), null);
+                    brands.put(brandKey, brand);
+                    insert(brand);
+                }
+                brand.products++;
+                brand.weight += popularity + 1;
+                product.brandKey = brandKey;
+                changed.add(brand);
+            }
+            if (document.getCategoryId() != null && !Tokenizer.normalize(document.getCategoryName()).isEmpty()) {
+                Entry category = categories.get(document.getCategoryId());
+                if (category == null) {
+                    category = new Entry(Type.CATEGORY, document.getCategoryName().trim(), document.getCategoryId());
+                    categories.put(category.id, category);
+                    insert(category);
+                }
+                category.products++;
+                category.weight += popularity + 1;
+                product.categoryId = category.id;
+                changed.add(category);
+            }
+            return changed;
+        }
+
+        // Returns the entries still in the trie whose weight changed; removed ones are already detached
+        List<Entry> removeProduct(long productId) {
+            List<Entry> changed = new ArrayList<>();
+            Entry product = products.remove(productId);
+            if (product == null) {
+                return changed;
+            }
+            detach(product);
+            if (product.brandKey != null) {
+                Entry brand = brands.get(product.brandKey);
+                if (--brand.products == 0) {
+                    brands.remove(product.brandKey);
+                    detach(brand);
+                } else {
+                    brand.weight -= product.weight + 1;
+                    changed.add(brand);
+                }
+            }
+            if (product.categoryId != null) {
+                Entry category = categories.get(product.categoryId);
+                if (--category.products == 0) {
+                    categories.remove(product.categoryId);
+                    detach(category);
+                } else {
+                    category.weight -= product.weight + 1;
+                    changed.add(category);
+                }
+            }
+            return changed;
+        }
+
+        // Replaces the category's entry with one keyed by the new name, keeping its counts
+        void renameCategory(long categoryId, String name) {
+            // Products keep pointing at the id, so the entry stays even for a name with no keys
+            Entry category = categories.get(categoryId);
+            if (category == null || Tokenizer.normalize(name).isEmpty() || category.text.equals(name.trim())) {
+                return;
+            }
+            detach(category);
+            Entry renamed = new Entry(Type.CATEGORY, name.trim(), categoryId);
+            renamed.products = category.products;
+            renamed.weight = category.weight;
+            categories.put(categoryId, renamed);
+            insert(renamed);
+            refresh(renamed);
+        }
+
+        private void insert(Entry entry) {
+            for (String key : entry.keys) {
+                Node node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.addChild(key.charAt(i));
+                }
+                node.terminals = append(node.terminals, entry);
+            }
+        }
+
+        private void detach(Entry entry) {
+            for (String key : entry.keys) {
+                Node[] path = path(key);
+                if (path == null) {
+                    continue;
+                }
+                Node last = path[key.length()];
+                last.terminals = without(last.terminals, entry);
+                refresh(key, path);
+            }
+        }
+
+        // Recomputes the top lists along every key of the entry, after its weight changed
+        void refresh(Entry entry) {
+            for (String key : entry.keys) {
+                Node[] path = path(key);
+                if (path != null) {
+                    refresh(key, path);
+                }
+            }
+        }
+
+        private Node[] path(String key) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+                if (path[i + 1] == null) {
+                    return null;
+                }
+            }
+            return path;
+        }
+
+        // Bottom-up, so each node merges children whose lists are already up to date.
+        // Nodes left without entries or children are pruned on the way.
+        private static void refresh(String key, Node[] path) {
+            for (int i = path.length - 1; i >= 0; i--) {
+                Node node = path[i];
+                if (i > 0 && node.isEmpty()) {
+                    path[i - 1].removeChild(key.charAt(i - 1));
+                    continue;
+                }
+                node.top = topOf(node);
+            }
+        }
+
+        // Computes every top list in one post-order pass, used after a bulk load
+        void refreshAll(Node node) {
+            for (Node child : node.children) {
+                refreshAll(child);
+            }
+            node.top = topOf(node);
+        }
+
+        private static Entry[] topOf(Node node) {
+            Set<Entry> candidates = new LinkedHashSet<>(Arrays.asList(node.terminals));
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            return candidates.stream().sorted(RANKING).limit(TOP_K).toArray(Entry[]::new);
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Trie trie = new Trie();
+
+    public void index(ProductDocument document, long popularity) {
+        lock.writeLock().lock();
+        try {
+            List<Entry> changed = new ArrayList<>(trie.removeProduct(document.getId()));
+            changed.addAll(trie.addProduct(document, popularity));
+            new LinkedHashSet<>(changed).forEach(trie::refresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            trie.removeProduct(productId).forEach(trie::refresh);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void renameCategory(long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            trie.renameCategory(categoryId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Rebuild beginRebuild() {
+        return new Rebuild();
+    }
+
+    public class Rebuild {
+        private final Trie newTrie = new Trie();
+
+        public void add(ProductDocument document, long popularity) {
+            newTrie.addProduct(document, popularity);
+        }
+
+        public void publish() {
+            newTrie.refreshAll(newTrie.root);
+            lock.writeLock().lock();
+            try {
+                trie = newTrie;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Best completions of the prefix, most popular first. */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = Tokenizer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = trie.root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            List<SuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && i < limit; i++) {
+                Entry entry = node.top[i];
+                suggestions.add(new SuggestionDTO(entry.text, entry.type.name(), entry.id));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The whole phrase plus every suffix starting at a word
+    private static Set<String> keysOf(String text) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = Tokenizer.normalize(text);
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] result = Arrays.copyOf(entries, entries.length + 1);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        List<Entry> result = new ArrayList<>(Arrays.asList(entries));
+        result.remove(entry);
+        return result.toArray(NO_ENTRIES);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.search;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Document ordinals kept sorted by one column of the facet index, e.g. (price, id).
+ * The comparator reads the current column values, so an ordinal has to be removed
+ * before its values change and inserted again afterwards.
+ */
+class SortedOrdinals {
+
+    interface OrdinalComparator {
+        int compare(int a, int b);
+    }
+
+    private final OrdinalComparator comparator;
+    private int[] ordinals = new int[64];
+    private int size;
+
+    SortedOrdinals(OrdinalComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    void insert(int ordinal) {
+        int pos = position(ordinal);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        System.arraycopy(ordinals, pos, ordinals, pos + 1, size - pos);
+        ordinals[pos] = ordinal;
+        size++;
+    }
+
+    void remove(int ordinal) {
+        int pos = position(ordinal);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+        size--;
+    }
+
+    int get(int index) {
+        return ordinals[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Index of the first ordinal accepted by a predicate that is false up to some point and true after it. */
+    int firstMatching(IntPredicate atOrAfter) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (atOrAfter.test(ordinals[mid])) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int position(int ordinal) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparator.compare(ordinals[mid], ordinal);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.search;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+final class Tokenizer {
+    // Descriptions are written in the rich text editor, so drop the markup first
+    private static final Pattern TAGS = Pattern.compile("<[^>]*>");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Tokenizer() {
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String plain = TAGS.matcher(text).replaceAll(" ").toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(plain)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Lowercased words of the text in their original order, joined by single spaces
+    static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        return String.join(" ", SEPARATORS.split(text.toLowerCase(Locale.ROOT).trim())).trim();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.seeder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// product_images rows written before image_order existed have it null, which Hibernate cannot
+// load. Number them 0, 1, ... per product in the order the table returns them, as before.
+@Component
+@Order(0)
+public class ProductImageOrderBackfill implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(String... args) {
+        Integer missing = jdbcTemplate.queryForObject(
+                "select count(*) from product_images where image_order is null", Integer.class);
+        if (missing == null || missing == 0) {
+            return;
+        }
+        // One transaction keeps the session variables on one connection
+        Integer updated = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("set @product := null, @position := -1");
+            return jdbcTemplate.update("update product_images set image_order = " +
+                    "(@position := if(@product = product_id, @position + 1, 0)) + 0 * (@product := product_id) " +
+                    "where image_order is null order by product_id");
+        });
+        System.out.println("Numbered " + updated + " product images.");
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.service;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once, with its gzip variant and an ETag derived from the content.
+ * Handed to the client as raw bytes, so serving it costs neither Jackson nor compression.
+ */
+public class CachedBody {
+    // Below this size the gzip framing eats most of the savings
+    private static final int MIN_GZIP_SIZE = 512;
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    public CachedBody(byte[] json) {
+        this.json = json;
+        this.gzip = json.length < MIN_GZIP_SIZE ? null : compress(json);
+        this.etag = DigestUtils.md5DigestAsHex(json);
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    // Null when the body is too small to be worth compressing
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] compressed = out.toByteArray();
+        return compressed.length < data.length ? compressed : null;
+    }
+}
@@ -1,80 +1,80 @@
 package com.example.demo.service;
 
+import com.example.demo.cart.CartStore;
 import com.example.demo.dto.CartDTO;
-import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.dto.CartOperationDTO;
 import com.example.demo.exception.ResourceNotFoundException;
-import com.example.demo.mapper.CartMapper;
-import com.example.demo.model.Cart;
-import com.example.demo.model.CartItem;
 import com.example.demo.model.Product;
-import com.example.demo.model.User;
-import com.example.demo.repositories.CartRepository;
 import com.example.demo.repositories.ProductRepository;
-import com.example.demo.repositories.UserRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+// Validates requests and hands them to the configured CartStore (cart.store.mode=jpa|memory)
 @Service
 @RequiredArgsConstructor
 public class CartService {
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
-    private final CartMapper cartMapper;
 
     public CartDTO addToCart(Long userId, Long productId, Integer quantity){
-        User user = userRepository.findById(userId)
-                .orElseThrow(()->new ResourceNotFoundException("User not found"));
-        Product product = productRepository.findById(productId)
-                .orElseThrow(()->new ResourceNotFoundException("Product not found"));
-
-        if(product.getQuantity()<quantity){
-            throw new InsufficientStockException("Not enough available");
-        }
-
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElse(new Cart(null, user, new ArrayList<>()));
-        Optional<CartItem> existingCartItem = cart.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst();
-
-        if(existingCartItem.isPresent()){
-            CartItem cartItem = existingCartItem.get();
-            cartItem.setQuantity(cartItem.getQuantity()+quantity);
-        }else{
-            CartItem cartItem = new CartItem(null, cart, product, quantity);
-            cart.getItems().add(cartItem);
+        if(quantity == null || quantity <= 0){
+            throw new IllegalArgumentException("Quantity must be positive");
         }
-        Cart savedCart = cartRepository.save(cart);
-        return cartMapper.toDTO(savedCart);
-
+        return cartStore.addItem(userId, productId, quantity);
     }
 
     public CartDTO getCart(Long userId){
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(()->new ResourceNotFoundException("Cart not found"));
-
-        return cartMapper.toDTO(cart);
+        return cartStore.getCart(userId);
     }
-    public void clearCart(Long userId){
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(()->new ResourceNotFoundException("Cart not found"));
 
-        cart.getItems().clear();
-        cartRepository.save(cart);
+    public void clearCart(Long userId){
+        cartStore.clear(userId);
     }
 
     //update
     public void removeCartItem(Long userId, Long productId) {
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found for user"));
+        cartStore.removeItem(userId, productId);
+    }
 
-        cart.getItems().removeIf(item -> item.getProduct().getId().equals(productId));
+    // Several set/add/remove operations in one transaction; every referenced product is loaded
+    // with a single findAllById and stock is checked in memory before anything changes
+    @Transactional
+    public CartDTO updateCart(Long userId, List<CartOperationDTO> operations) {
+        for (CartOperationDTO operation : operations) {
+            Integer quantity = operation.getQuantity();
+            boolean valid = switch (operation.getOp()) {
+                case SET -> quantity != null && quantity >= 0;
+                case ADD -> quantity != null && quantity > 0;
+                case REMOVE -> true;
+            };
+            if (!valid) {
+                throw new IllegalArgumentException("Invalid quantity for " + operation.getOp() + " of product " + operation.getProductId());
+            }
+        }
+        Set<Long> productIds = operations.stream().map(CartOperationDTO::getProductId).collect(Collectors.toSet());
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            stock.put(product.getId(), product.getQuantity() == null ? 0 : product.getQuantity());
+        }
+        // Removing a line of a product that no longer exists is fine, adding one is not
+        for (CartOperationDTO operation : operations) {
+            if (operation.getOp() != CartOperationDTO.Op.REMOVE && !stock.containsKey(operation.getProductId())) {
+                throw new ResourceNotFoundException("Product not found: " + operation.getProductId());
+            }
+        }
+        return cartStore.apply(userId, operations, stock);
+    }
 
-        cartRepository.save(cart);
+    // Orders read the cart tables, so pending in-memory changes must land first
+    public void flushCart(Long userId) {
+        cartStore.flush(userId);
     }
 }
 
@@ -88,4 +88,4 @@ public class CartService {
 //
 //        If yes, it updates the quantity of that product in the cart.
 //
-//        If no, it adds a new CartItem for that Product.
\ No newline at end of file
+//        If no, it adds a new CartItem for that Product.
@@ -0,0 +1,36 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CategoryDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of every category with its product count, replaced as a whole
+ * whenever a category or a product assignment changes.
+ */
+public class CategoryCatalog {
+    private final long version;
+    private final List<CategoryDTO> categories;
+    private final Map<Long, CategoryDTO> byId;
+
+    public CategoryCatalog(long version, List<CategoryDTO> categories) {
+        this.version = version;
+        this.categories = List.copyOf(categories);
+        this.byId = this.categories.stream().collect(Collectors.toMap(CategoryDTO::getId, Function.identity()));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    public CategoryDTO find(Long id) {
+        return byId.get(id);
+    }
+}
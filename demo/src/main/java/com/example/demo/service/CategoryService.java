@@ -1,15 +1,24 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CategoryDTO;
+import com.example.demo.event.CategoryChangedEvent;
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.event.ProductsImportedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.Category;
 import com.example.demo.repositories.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,6 +26,13 @@ import java.util.stream.Collectors;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final S3Service s3Service; // Injected S3Service
+    private final ResponseCache responseCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Bumped by every write that affects the catalog. Seeded with the start time so that
+    // versions, and the ETags built from them, are not reused after a restart.
+    private final AtomicLong catalogVersion = new AtomicLong(System.currentTimeMillis());
+    private volatile CategoryCatalog catalog;
 
     public CategoryDTO createCategory(CategoryDTO categoryDTO, MultipartFile image) throws IOException {
         Category category = new Category();
@@ -29,17 +45,57 @@ public class CategoryService {
         }
 
         Category savedCategory = categoryRepository.save(category);
-        return toDto(savedCategory);
+        invalidateCatalog();
+        return toDto(savedCategory, 0L);
     }
 
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findAll().stream().map(this::toDto).collect(Collectors.toList());
+        return getCatalog().getCategories();
     }
 
-    public CategoryDTO getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found with ID: " + id));
-        return toDto(category);
+    /** Categories with their product counts, loaded with two queries and kept until the next write. */
+    public CategoryCatalog getCatalog() {
+        CategoryCatalog current = catalog;
+        long version = catalogVersion.get();
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        Map<Long, Long> counts = new HashMap<>();
+        categoryRepository.countProductsByCategory()
+                .forEach(row -> counts.put(row.getCategoryId(), row.getProductCount()));
+        List<CategoryDTO> categories = categoryRepository.findAll().stream()
+                .map(category -> toDto(category, counts.getOrDefault(category.getId(), 0L)))
+                .collect(Collectors.toList());
+        CategoryCatalog loaded = new CategoryCatalog(version, categories);
+        // A write that happened while loading has already bumped the version, keep the old one out
+        if (catalogVersion.get() == version) {
+            catalog = loaded;
+        }
+        return loaded;
+    }
+
+    // Product writes move counts between categories; they are only visible once committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidateCatalog();
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        invalidateCatalog();
+    }
+
+    private void invalidateCatalog() {
+        catalogVersion.incrementAndGet();
+        responseCache.invalidate(ResponseCache.CATEGORIES);
+    }
+
+    public CategoryDTO getCategoryById(Long id, CategoryCatalog catalog) {
+        CategoryDTO category = catalog.find(id);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category not found with ID: " + id);
+        }
+        return category;
     }
 
     public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO, MultipartFile image) throws IOException {
@@ -54,7 +110,10 @@ public class CategoryService {
         }
 
         Category updatedCategory = categoryRepository.save(existingCategory);
-        return toDto(updatedCategory);
+        invalidateCatalog();
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, updatedCategory.getName()));
+        CategoryDTO current = getCatalog().find(id);
+        return toDto(updatedCategory, current == null ? 0L : current.getProductCount());
     }
 
     public void deleteCategory(Long id) {
@@ -62,9 +121,11 @@ public class CategoryService {
             throw new ResourceNotFoundException("Category not found with ID: " + id);
         }
         categoryRepository.deleteById(id);
+        invalidateCatalog();
     }
 
-    private CategoryDTO toDto(Category category) {
-        return new CategoryDTO(category.getId(), category.getName(), category.getDescription(), category.getImageUrl());
+    private CategoryDTO toDto(Category category, Long productCount) {
+        return new CategoryDTO(category.getId(), category.getName(), category.getDescription(), category.getImageUrl(),
+                productCount);
     }
 }
\ No newline at end of file
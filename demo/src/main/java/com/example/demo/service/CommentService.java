@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CommentDTO;
+import com.example.demo.event.ProductChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CommentMapper;
 import com.example.demo.model.Comment;
@@ -9,9 +10,12 @@ import com.example.demo.model.User;
 import com.example.demo.repositories.CommentRepository;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,10 +26,15 @@ public class CommentService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CommentMapper commentMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional
     public CommentDTO addComment(Long productId, Long userId, CommentDTO commentDTO){
-        Product product = productRepository.findById(productId)
-                .orElseThrow(()-> new ResourceNotFoundException("Product not found"));
+        // Bumps the product version so cached product pages are revalidated
+        if (productRepository.incrementVersion(productId, Instant.now()) == 0) {
+            throw new ResourceNotFoundException("Product not found");
+        }
+        Product product = productRepository.getReferenceById(productId);
         User user = userRepository.findById(userId)
                 .orElseThrow(()-> new ResourceNotFoundException("User not found"));
 
@@ -33,6 +42,8 @@ public class CommentService {
         comment.setProduct(product);
         comment.setUser(user);
         Comment savedComment = commentRepository.save(comment);
+        // The product page embeds its comments, so it has to be refreshed as well
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.UPDATED));
         return commentMapper.toDTO(savedComment);
 
     }
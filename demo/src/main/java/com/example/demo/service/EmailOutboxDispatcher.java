@@ -0,0 +1,291 @@
+package com.example.demo.service;
+
+import com.example.demo.event.EmailQueuedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the email outbox.
+ * Due rows are claimed in batches with FOR UPDATE SKIP LOCKED, so several instances can share the
+ * table, and handed in chunks to a fixed pool of outbox.workers threads. Each chunk goes out over a
+ * single SMTP connection. Failed messages are retried with exponential backoff and jitter until
+ * outbox.max-attempts, then left as DEAD. A claim is a lease: rows of a worker that died are claimed
+ * again once outbox.lease has passed.
+ */
+@Service
+public class EmailOutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final String CLAIM = "select id, recipient, subject, body, attempts from email_outbox " +
+            "where status in ('PENDING', 'SENDING') and next_attempt_at <= ? " +
+            "order by next_attempt_at limit ? for update skip locked";
+
+    private final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final JavaMailSender mailSender;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+    private final Timer chunkTimer;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${outbox.workers:4}")
+    private int workerCount;
+
+    @Value("${outbox.chunk-size:20}")
+    private int chunkSize;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-initial:30s}")
+    private Duration backoffInitial;
+
+    @Value("${outbox.backoff-max:1h}")
+    private Duration backoffMax;
+
+    @Value("${outbox.lease:5m}")
+    private Duration lease;
+
+    private ThreadPoolExecutor workers;
+    // One permit per worker: rows are only claimed for a worker that is free to send them
+    private Semaphore permits;
+    // A single thread claims and hands out work; wake-ups arriving while one is queued are dropped
+    private ThreadPoolExecutor dispatcher;
+
+    private record OutboxMessage(long id, String recipient, String subject, String body, int attempts) {
+    }
+
+    public EmailOutboxDispatcher(JavaMailSender mailSender, JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate, TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sent = Counter.builder("outbox.emails").tag("result", "sent").register(meterRegistry);
+        this.retried = Counter.builder("outbox.emails").tag("result", "retried").register(meterRegistry);
+        this.dead = Counter.builder("outbox.emails").tag("result", "dead").register(meterRegistry);
+        this.chunkTimer = Timer.builder("outbox.send")
+                .description("Time to send one chunk of emails over one SMTP connection")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), namedThreads("outbox-worker-"));
+        permits = new Semaphore(workerCount);
+        dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), namedThreads("outbox-dispatcher-"), new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(10, TimeUnit.SECONDS);
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            // Unfinished rows keep their lease and are picked up again after a restart
+            logger.warn("Outbox workers still busy at shutdown");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-ms:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        dispatcher.execute(this::dispatch);
+    }
+
+    private void dispatch() {
+        try {
+            while (permits.availablePermits() > 0) {
+                int limit = permits.availablePermits() * chunkSize;
+                List<OutboxMessage> claimed = claim(limit);
+                for (int from = 0; from < claimed.size(); from += chunkSize) {
+                    List<OutboxMessage> chunk = claimed.subList(from, Math.min(from + chunkSize, claimed.size()));
+                    // Only this thread acquires, so a permit is always there for each chunk
+                    permits.acquireUninterruptibly();
+                    workers.execute(() -> {
+                        try {
+                            chunkTimer.record(() -> deliver(chunk));
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+                if (claimed.size() < limit) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to dispatch outbox emails", e);
+        }
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            List<OutboxMessage> rows = jdbcTemplate.query(CLAIM, (rs, i) -> new OutboxMessage(rs.getLong("id"),
+                    rs.getString("recipient"), rs.getString("subject"), rs.getString("body"), rs.getInt("attempts")),
+                    Timestamp.from(now), limit);
+            if (!rows.isEmpty()) {
+                namedJdbcTemplate.update("update email_outbox set status = 'SENDING', next_attempt_at = :leaseEnd " +
+                                "where id in (:ids)",
+                        Map.of("leaseEnd", Timestamp.from(now.plus(lease)),
+                                "ids", rows.stream().map(OutboxMessage::id).toList()));
+            }
+            return rows;
+        });
+    }
+
+    private void deliver(List<OutboxMessage> chunk) {
+        List<Long> delivered = new ArrayList<>();
+        Map<OutboxMessage, String> failed = new HashMap<>();
+        Map<OutboxMessage, String> rejected = new HashMap<>();
+        Map<MimeMessage, OutboxMessage> messages = new IdentityHashMap<>();
+        for (OutboxMessage email : chunk) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException | MailException e) {
+                // A malformed address or header never gets better, so it is not retried
+                rejected.put(email, e.getMessage());
+            }
+        }
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+                messages.values().forEach(email -> delivered.add(email.id()));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                messages.forEach((message, email) -> {
+                    Exception cause = failedMessages.get(message);
+                    if (cause == null) {
+                        delivered.add(email.id());
+                    } else {
+                        failed.put(email, cause.getMessage());
+                    }
+                });
+            } catch (MailException e) {
+                messages.values().forEach(email -> failed.put(email, e.getMessage()));
+            }
+        }
+        record(delivered, failed, rejected);
+    }
+
+    private MimeMessage toMimeMessage(OutboxMessage email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.recipient());
+        helper.setSubject(email.subject());
+        helper.setText(email.body());
+        return message;
+    }
+
+    // Outcomes of a chunk are written together, one batch per kind
+    private void record(List<Long> delivered, Map<OutboxMessage, String> failed, Map<OutboxMessage, String> rejected) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> deadLetters = new ArrayList<>();
+        failed.forEach((email, error) -> {
+            int attempts = email.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                deadLetters.add(new Object[]{truncate(error), email.id()});
+            } else {
+                retries.add(new Object[]{Timestamp.from(Instant.now().plus(backoff(attempts))), truncate(error), email.id()});
+            }
+        });
+        rejected.forEach((email, error) -> deadLetters.add(new Object[]{truncate(error), email.id()}));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                jdbcTemplate.batchUpdate("update email_outbox set status = 'SENT', sent_at = ?, attempts = attempts + 1, " +
+                        "last_error = null where id = ?", delivered.stream().map(id -> new Object[]{now, id}).toList());
+            }
+            if (!retries.isEmpty()) {
+                jdbcTemplate.batchUpdate("update email_outbox set status = 'PENDING', next_attempt_at = ?, " +
+                        "attempts = attempts + 1, last_error = ? where id = ?", retries);
+            }
+            if (!deadLetters.isEmpty()) {
+                jdbcTemplate.batchUpdate("update email_outbox set status = 'DEAD', attempts = attempts + 1, " +
+                        "last_error = ? where id = ?", deadLetters);
+            }
+        });
+        sent.increment(delivered.size());
+        retried.increment(retries.size());
+        dead.increment(deadLetters.size());
+        if (!deadLetters.isEmpty()) {
+            logger.warn("{} outbox emails moved to DEAD", deadLetters.size());
+        }
+    }
+
+    // initial * 2^(attempts - 1), capped, spread by +-20% so failed chunks do not retry in lockstep
+    private Duration backoff(int attempts) {
+        long delay = backoffInitial.toMillis() << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, backoffMax.toMillis());
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (delay * jitter));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+
+    private static CustomizableThreadFactory namedThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -1,28 +1,42 @@
 package com.example.demo.service;
 
+import com.example.demo.event.EmailQueuedEvent;
+import com.example.demo.model.EmailOutbox;
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import com.example.demo.repositories.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    public void sendOrderConfirmation(Order order){
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(order.getUser().getEmail());
-        message.setSubject("Order confirmation");
-        message.setText("Your order has been confirmed. Order ID " + order.getId());
-        mailSender.send(message);
+    // Queued rather than sent: the row commits or rolls back with the order, and checkout
+    // never waits on the mail server
+    public void queueOrderConfirmation(Order order){
+        queue(order.getUser().getEmail(), "Order confirmation", "Your order has been confirmed. Order ID " + order.getId());
+    }
+
+    /** Writes the email to the outbox in the current transaction; EmailOutboxDispatcher delivers it. */
+    public EmailOutbox queue(String recipient, String subject, String text){
+        Instant now = Instant.now();
+        EmailOutbox email = outboxRepository.save(new EmailOutbox(null, recipient, subject, text,
+                EmailOutbox.Status.PENDING, 0, now, null, now, null));
+        eventPublisher.publishEvent(new EmailQueuedEvent(email.getId()));
+        return email;
     }
 
     // --- THIS METHOD IS UPDATED ---
@@ -17,6 +17,7 @@ public class HeroService {
     private final HeroRepository heroRepository;
     private final HeroMapper heroMapper;
     private final S3Service s3Service; // Injected S3Service
+    private final ResponseCache responseCache;
 
     public HeroDTO getHero() {
         Hero hero = heroRepository.findById(1L).orElseGet(() -> {
@@ -47,6 +48,7 @@ public class HeroService {
         }
 
         Hero updatedHero = heroRepository.save(hero);
+        responseCache.invalidate(ResponseCache.HERO);
         return heroMapper.toDTO(updatedHero);
     }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderDTO;
+import com.example.demo.exception.IdempotencyConflictException;
+import com.example.demo.model.IdempotencyKey;
+import com.example.demo.repositories.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * POST /api/orders with an Idempotency-Key header.
+ * The first request with a key claims a row in idempotency_key and creates the order; the row is
+ * completed with the resulting OrderDTO in the order's own transaction, so an order never exists
+ * without its key or the other way round. Later requests with the key get that OrderDTO back from an
+ * in-memory LRU or from the row, without touching the cart or product tables. A duplicate arriving
+ * while the first is still running on this instance waits for its outcome; one running on another
+ * instance gets 409 and can retry.
+ */
+@Service
+public class OrderIdempotencyService {
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(OrderIdempotencyService.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${idempotency.retention:24h}")
+    private Duration retention;
+
+    // A claim older than this belongs to a request that died, and the key can be claimed again
+    @Value("${idempotency.in-progress-timeout:5m}")
+    private Duration inProgressTimeout;
+
+    private Cache<String, Completed> results;
+    private final Map<String, CompletableFuture<OrderDTO>> inFlight = new ConcurrentHashMap<>();
+    private TransactionTemplate claimTransaction;
+    private TransactionTemplate orderTransaction;
+
+    private record Completed(String requestHash, OrderDTO order) {
+    }
+
+    @PostConstruct
+    void init() {
+        results = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(retention)
+                .build();
+        // The claim must be visible to other instances before the order work starts
+        claimTransaction = new TransactionTemplate(transactionManager);
+        claimTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        orderTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public OrderDTO createOrder(Long userId, String idempotencyKey, String address, String phoneNumber) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = userId + ":" + idempotencyKey;
+        String requestHash = hash(address, phoneNumber);
+
+        Completed completed = results.getIfPresent(cacheKey);
+        if (completed != null) {
+            return replay(completed, requestHash);
+        }
+
+        CompletableFuture<OrderDTO> outcome = new CompletableFuture<>();
+        CompletableFuture<OrderDTO> running = inFlight.putIfAbsent(cacheKey, outcome);
+        if (running != null) {
+            OrderDTO order = await(running);
+            Completed done = results.getIfPresent(cacheKey);
+            return done == null ? order : replay(done, requestHash);
+        }
+        try {
+            OrderDTO order = execute(userId, idempotencyKey, cacheKey, requestHash, address, phoneNumber);
+            outcome.complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            outcome.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, outcome);
+        }
+    }
+
+    private OrderDTO execute(Long userId, String idempotencyKey, String cacheKey, String requestHash,
+                             String address, String phoneNumber) {
+        IdempotencyKey stored = claim(userId, idempotencyKey, requestHash);
+        if (stored != null) {
+            Completed completed = new Completed(stored.getRequestHash(), readResponse(stored.getResponse()));
+            results.put(cacheKey, completed);
+            return replay(completed, requestHash);
+        }
+        try {
+            OrderDTO order = orderTransaction.execute(status -> {
+                OrderDTO created = orderService.createOrder(userId, address, phoneNumber);
+                jdbcTemplate.update("update idempotency_key set status = 'COMPLETED', order_id = ?, response = ? " +
+                        "where user_id = ? and idempotency_key = ?",
+                        created.getId(), writeResponse(created), userId, idempotencyKey);
+                return created;
+            });
+            results.put(cacheKey, new Completed(requestHash, order));
+            return order;
+        } catch (RuntimeException e) {
+            // Nothing was created, so a retry with the same key should run the order again
+            release(userId, idempotencyKey);
+            throw e;
+        }
+    }
+
+    /**
+     * Claims the key for this request. Returns null once claimed, or the completed row if the key
+     * was already used. Throws if another request still holds the key.
+     */
+    private IdempotencyKey claim(Long userId, String idempotencyKey, String requestHash) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            claimTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into idempotency_key (user_id, idempotency_key, request_hash, status, created_at) " +
+                            "values (?, ?, ?, 'IN_PROGRESS', ?)",
+                    userId, idempotencyKey, requestHash, now));
+            return null;
+        } catch (DuplicateKeyException e) {
+            IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .orElseThrow(() -> new IdempotencyConflictException("Request with this Idempotency-Key is in progress"));
+            if (stored.getStatus() == IdempotencyKey.Status.COMPLETED) {
+                return stored;
+            }
+            if (!stored.getRequestHash().equals(requestHash)) {
+                throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+            }
+            // Take over a claim left behind by a request that never finished
+            Integer taken = claimTransaction.execute(status -> jdbcTemplate.update(
+                    "update idempotency_key set created_at = ? " +
+                            "where id = ? and status = 'IN_PROGRESS' and created_at < ?",
+                    now, stored.getId(), Timestamp.from(now.toInstant().minus(inProgressTimeout))));
+            if (taken == null || taken == 0) {
+                throw new IdempotencyConflictException("Request with this Idempotency-Key is in progress");
+            }
+            return null;
+        }
+    }
+
+    private void release(Long userId, String idempotencyKey) {
+        try {
+            claimTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                    "delete from idempotency_key where user_id = ? and idempotency_key = ? and status = 'IN_PROGRESS'",
+                    userId, idempotencyKey));
+        } catch (RuntimeException e) {
+            // The claim then expires after idempotency.in-progress-timeout
+            logger.warn("Failed to release Idempotency-Key {} of user {}", idempotencyKey, userId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-ms:3600000}")
+    public void deleteExpired() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        int deleted;
+        long total = 0;
+        do {
+            deleted = jdbcTemplate.update("delete from idempotency_key where created_at < ? limit 1000", cutoff);
+            total += deleted;
+        } while (deleted == 1000);
+        if (total > 0) {
+            logger.info("Deleted {} expired idempotency keys", total);
+        }
+    }
+
+    private static OrderDTO replay(Completed completed, String requestHash) {
+        if (!completed.requestHash().equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        return completed.order();
+    }
+
+    private static OrderDTO await(CompletableFuture<OrderDTO> running) {
+        try {
+            return running.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // The duplicate fails the same way the first request did
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Request with this Idempotency-Key is in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Request with this Idempotency-Key is in progress");
+        }
+    }
+
+    private String writeResponse(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getId(), e);
+        }
+    }
+
+    private OrderDTO readResponse(String response) {
+        try {
+            return objectMapper.readValue(response, OrderDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored order response", e);
+        }
+    }
+
+    private static String hash(String address, String phoneNumber) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(address.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(phoneNumber.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
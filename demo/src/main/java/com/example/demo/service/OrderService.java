@@ -1,8 +1,9 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.CartDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.OrderDTO;
-import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.event.OrderSalesEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.CartMapper;
 import com.example.demo.mapper.OrderMapper;
@@ -10,30 +11,40 @@ import com.example.demo.model.*;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.specification.KeysetCursor;
+import com.example.demo.specification.OrderSpecification;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.mail.MailException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
-    private final Logger logger = LoggerFactory.getLogger(OrderService.class);
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final OrderRepository orderRepository;
     private final CartService cartService;
     private final ProductRepository productRepository;
+    private final StockService stockService;
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final OrderMapper orderMapper;
     private final CartMapper cartMapper;
+    private final OrderSpecification orderSpecification;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public OrderDTO createOrder(Long userId, String address, String phoneNumber){
@@ -42,6 +53,7 @@ public class OrderService {
         if(!user.isEmailConfirmation()){
             throw new IllegalStateException("Email not confirmed. Please confirm email before placing order");
         }
+        cartService.flushCart(userId);
         CartDTO cartDTO = cartService.getCart(userId);
         Cart cart = cartMapper.toEntity(cartDTO);
 
@@ -61,46 +73,85 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
         cartService.clearCart(userId);
+        eventPublisher.publishEvent(salesEvent(savedOrder, 1));
 
-        try{
-            emailService.sendOrderConfirmation(savedOrder);
-        }catch (MailException e){
-            logger.error("Failed to send order confirmation email for order ID "+savedOrder.getId(), e);
-        }
+        emailService.queueOrderConfirmation(savedOrder);
         return orderMapper.toDTO(savedOrder);
     }
 
     private List<OrderItem> createOrderItems(Cart cart, Order order){
-        return cart.getItems().stream().map(cartItem -> {
-            Product product = productRepository.findById(cartItem.getProduct().getId())
-                    .orElseThrow(()-> new EntityNotFoundException("Product not found with id: "+cartItem.getProduct().getId()));
-
+        Map<Long, Integer> quantities = new HashMap<>();
+        cart.getItems().forEach(cartItem -> quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum));
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<OrderItem> orderItems = cart.getItems().stream().map(cartItem -> {
+            Product product = products.get(cartItem.getProduct().getId());
+            if(product == null){
+                throw new EntityNotFoundException("Product not found with id: "+cartItem.getProduct().getId());
+            }
             if(product.getQuantity() == null){
                 throw new IllegalStateException("Product quantity is not set for product "+product.getName());
             }
-            if(product.getQuantity() < cartItem.getQuantity()){
-                throw new InsufficientStockException("Not enough stock for product "+product.getName());
-            }
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            productRepository.save(product);
-
             return new OrderItem(null, order, product, cartItem.getQuantity(), product.getPrice());
         }).collect(Collectors.toList());
+
+        // The stock check happens in the update itself, the quantities loaded above may already be stale
+        stockService.decrementStock(quantities);
+        return orderItems;
     }
 
-    public List<OrderDTO> getAllOrders(){
-        return orderMapper.toDTOs(orderRepository.findAll());
+    // Admin listing, newest first. The page's ids come from an index-only keyset query,
+    // then the orders, items and products of the page are loaded in one statement.
+    public CursorPage<OrderDTO> searchOrders(Order.OrderStatus status, Long userId, LocalDateTime from, LocalDateTime to,
+                                             String cursor, Integer size){
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        Specification<Order> spec = orderSpecification.getOrders(status, userId, from, to)
+                .and(orderSpecification.after(after));
+        List<Long> ids = orderRepository.findIds(spec, OrderSpecification.SORT, pageSize + 1);
+        boolean hasNext = ids.size() > pageSize;
+        List<Long> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+        if (pageIds.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), null, false);
+        }
+
+        Map<Long, Order> orders = orderRepository.findWithItemsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<Order> page = pageIds.stream().map(orders::get).filter(Objects::nonNull).toList();
+        String nextCursor = hasNext && !page.isEmpty()
+                ? OrderSpecification.cursorAfter(page.get(page.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(orderMapper.toDTOs(page), nextCursor, hasNext);
     }
 
     public List<OrderDTO> getUserOrders(Long userId){
         return orderMapper.toDTOs(orderRepository.findByUserId(userId));
     }
 
+    @Transactional
     public OrderDTO updateOrderStatus(Long orderId,Order.OrderStatus status){
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(()->new ResourceNotFoundException("Order not found"));
+        Order.OrderStatus previous = order.getStatus();
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
+        // A cancellation is taken out of the buckets the order was counted in, and put back if undone
+        boolean wasCanceled = previous == Order.OrderStatus.CANCELED;
+        boolean isCanceled = status == Order.OrderStatus.CANCELED;
+        if (wasCanceled != isCanceled) {
+            eventPublisher.publishEvent(salesEvent(updatedOrder, isCanceled ? -1 : 1));
+        }
         return orderMapper.toDTO(updatedOrder);
     }
+
+    private static OrderSalesEvent salesEvent(Order order, int sign){
+        List<OrderSalesEvent.Line> lines = order.getItems().stream()
+                .map(item -> new OrderSalesEvent.Line(item.getProduct().getId(),
+                        item.getProduct().getCategory() == null ? null : item.getProduct().getCategory().getId(),
+                        item.getQuantity(), item.getPrice()))
+                .toList();
+        return new OrderSalesEvent(order.getId(), order.getCreatedAt(), sign, lines);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.event.ProductStockChangedEvent;
+import com.example.demo.event.ProductsImportedEvent;
+import com.example.demo.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Evicts only once the write has committed, so a concurrent read cannot put the old row back
+@Component
+@RequiredArgsConstructor
+public class ProductCacheInvalidator {
+    private final CacheManager cacheManager;
+    private final ProductRepository productRepository;
+
+    // Products whose stock changed since the last tick, their category pages are evicted together
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Cache productDetails = cacheManager.getCache(CacheConfig.PRODUCT_DETAILS);
+        if (productDetails != null) {
+            productDetails.evict(event.getProductId());
+        }
+        // The event does not say which categories the product left or joined
+        clearCategoryFirstPages();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        Cache productDetails = cacheManager.getCache(CacheConfig.PRODUCT_DETAILS);
+        if (productDetails != null) {
+            event.getProductIds().forEach(productDetails::evict);
+        }
+        stockChanged.addAll(event.getProductIds());
+    }
+
+    // Checkouts come in far faster than category pages are worth reloading, so the first pages of the
+    // affected categories are evicted once per tick instead of the whole cache once per checkout
+    @Scheduled(fixedDelayString = "${search.index.stock-refresh-ms:2000}")
+    public void evictStockChangedCategories() {
+        List<Long> productIds = new ArrayList<>();
+        for (Long productId : stockChanged) {
+            if (stockChanged.remove(productId)) {
+                productIds.add(productId);
+            }
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Cache firstPages = cacheManager.getCache(CacheConfig.CATEGORY_FIRST_PAGES);
+        if (firstPages == null) {
+            return;
+        }
+        Set<String> categoryIds = new HashSet<>();
+        productRepository.findCategoryIdsByIdIn(productIds).forEach(categoryId -> categoryIds.add(categoryId.toString()));
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        // Keys are categoryId:sort:size, see ProductService.getCategoryProducts
+        @SuppressWarnings("unchecked")
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) firstPages.getNativeCache();
+        nativeCache.asMap().keySet().removeIf(key -> {
+            String text = key.toString();
+            int end = text.indexOf(':');
+            return end > 0 && categoryIds.contains(text.substring(0, end));
+        });
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        clearCategoryFirstPages();
+    }
+
+    private void clearCategoryFirstPages() {
+        Cache firstPages = cacheManager.getCache(CacheConfig.CATEGORY_FIRST_PAGES);
+        if (firstPages != null) {
+            firstPages.clear();
+        }
+    }
+}
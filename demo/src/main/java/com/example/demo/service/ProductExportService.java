@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductExportRow;
+import com.example.demo.repositories.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Full catalog export as NDJSON or CSV.
+ * Rows are read from a forward-only MySQL stream and written to the response as they
+ * arrive; only the product currently being assembled is held in memory.
+ * The format matches what {@link ProductImportService} reads, so an export can be re-imported.
+ */
+@Service
+public class ProductExportService {
+    private static final String CSV_HEADER = "id,name,description,price,quantity,brand,category,bestseller,newArrival,images";
+
+    private final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out, boolean csv) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // One object per line: no separator between root values, the newline is written explicitly
+        JsonGenerator json = csv ? null : objectMapper.getFactory()
+                .createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setPrettyPrinter(new MinimalPrettyPrinter(""));
+        if (csv) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long exported = 0;
+        try (Stream<ProductExportRow> rows = productRepository.streamExportRows()) {
+            Iterator<ProductExportRow> iterator = rows.iterator();
+            ProductExportRow current = null;
+            List<String> images = new ArrayList<>();
+            while (iterator.hasNext()) {
+                ProductExportRow row = iterator.next();
+                if (current != null && !current.getId().equals(row.getId())) {
+                    write(current, images, writer, json);
+                    exported++;
+                    images.clear();
+                }
+                current = row;
+                if (row.getImage() != null) {
+                    images.add(row.getImage());
+                }
+            }
+            if (current != null) {
+                write(current, images, writer, json);
+                exported++;
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        logger.info("Exported {} products in {} ms", exported, System.currentTimeMillis() - start);
+        return exported;
+    }
+
+    private void write(ProductExportRow product, List<String> images, Writer writer, JsonGenerator json) throws IOException {
+        if (json == null) {
+            writeCsv(product, images, writer);
+            return;
+        }
+        json.writeStartObject();
+        json.writeNumberField("id", product.getId());
+        json.writeStringField("name", product.getName());
+        json.writeStringField("description", product.getDescription());
+        if (product.getPrice() != null) {
+            json.writeNumberField("price", product.getPrice());
+        }
+        if (product.getQuantity() != null) {
+            json.writeNumberField("quantity", product.getQuantity());
+        }
+        json.writeStringField("brand", product.getBrand());
+        json.writeStringField("category", product.getCategoryName());
+        json.writeBooleanField("bestseller", product.isBestseller());
+        json.writeBooleanField("newArrival", product.isNewArrival());
+        json.writeArrayFieldStart("images");
+        for (String image : images) {
+            json.writeString(image);
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeCsv(ProductExportRow product, List<String> images, Writer writer) throws IOException {
+        writer.write(String.valueOf(product.getId()));
+        writer.write(',');
+        writer.write(csvField(product.getName()));
+        writer.write(',');
+        writer.write(csvField(product.getDescription()));
+        writer.write(',');
+        writer.write(product.getPrice() == null ? "" : product.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(product.getQuantity() == null ? "" : product.getQuantity().toString());
+        writer.write(',');
+        writer.write(csvField(product.getBrand()));
+        writer.write(',');
+        writer.write(csvField(product.getCategoryName()));
+        writer.write(',');
+        writer.write(String.valueOf(product.isBestseller()));
+        writer.write(',');
+        writer.write(String.valueOf(product.isNewArrival()));
+        writer.write(',');
+        writer.write(csvField(String.join("|", images)));
+        writer.write('\n');
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportErrorDTO;
+import com.example.demo.dto.ProductImportResultDTO;
+import com.example.demo.dto.ProductImportRow;
+import com.example.demo.event.ProductsImportedEvent;
+import com.example.demo.model.Category;
+import com.example.demo.repositories.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bulk product import from CSV or NDJSON.
+ * The body is read row by row and written in JDBC batches, each batch in its own
+ * transaction, so neither the file nor the persistence context grows with the import size.
+ * Rows that fail validation are reported by line and skipped; the rest of the file still goes in.
+ */
+@Service
+public class ProductImportService {
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final String INSERT_PRODUCT = "insert into product "
+            + "(name, description, price, quantity, brand, bestseller, new_arrival, category_id, version, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    private static final String INSERT_IMAGE = "insert into product_images (product_id, image_order, images) values (?, ?, ?)";
+
+    private final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize;
+
+    public ProductImportResultDTO importProducts(InputStream body, String contentType) throws IOException {
+        long start = System.nanoTime();
+        Import run = new Import(loadCategories());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (contentType != null && contentType.startsWith(NDJSON)) {
+            readNdjson(reader, run);
+        } else {
+            readCsv(reader, run);
+        }
+        run.flush();
+
+        if (run.imported > 0) {
+            eventPublisher.publishEvent(new ProductsImportedEvent(run.imported));
+        }
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = durationMs == 0 ? run.rowsRead : run.rowsRead * 1000.0 / durationMs;
+        logger.info("Imported {} of {} products in {} ms ({} rows/s)",
+                run.imported, run.rowsRead, durationMs, Math.round(rowsPerSecond));
+        return new ProductImportResultDTO(run.rowsRead, run.imported, run.failed, run.errors,
+                durationMs, rowsPerSecond);
+    }
+
+    // Resolved once per import instead of a category lookup per row
+    private Map<String, Long> loadCategories() {
+        Map<String, Long> byName = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            byName.put(category.getName().trim().toLowerCase(), category.getId());
+        }
+        return byName;
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ProductImportRow row;
+            try {
+                row = objectMapper.readValue(line, ProductImportRow.class);
+            } catch (IOException e) {
+                run.reject(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(lineNumber, row);
+        }
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new IllegalArgumentException("CSV header must contain at least name and price columns");
+        }
+        while (true) {
+            long lineNumber = csv.getLine();
+            List<String> record = csv.next();
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(lineNumber, toRow(record, columns));
+            } catch (IllegalArgumentException e) {
+                run.reject(lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    private ProductImportRow toRow(List<String> record, Map<String, Integer> columns) {
+        Function<String, String> field = column -> {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isBlank()) {
+                return null;
+            }
+            return record.get(index).trim();
+        };
+        ProductImportRow row = new ProductImportRow();
+        row.setName(field.apply("name"));
+        row.setDescription(field.apply("description"));
+        row.setBrand(field.apply("brand"));
+        row.setCategory(field.apply("category"));
+        try {
+            String price = field.apply("price");
+            row.setPrice(price == null ? null : new BigDecimal(price));
+            String quantity = field.apply("quantity");
+            row.setQuantity(quantity == null ? null : Integer.valueOf(quantity));
+            String categoryId = field.apply("categoryid");
+            row.setCategoryId(categoryId == null ? null : Long.valueOf(categoryId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+        row.setBestseller(Boolean.parseBoolean(field.apply("bestseller")));
+        row.setNewArrival(Boolean.parseBoolean(field.apply("newarrival")));
+        String images = field.apply("images");
+        if (images != null) {
+            // Several image URLs share one column, separated by '|'
+            row.setImages(Arrays.stream(images.split("\\|")).map(String::trim).filter(s -> !s.isEmpty()).toList());
+        }
+        return row;
+    }
+
+    /** State of one import run: the pending batch plus the counters reported back. */
+    private class Import {
+        private final Map<String, Long> categories;
+        private final List<ProductImportRow> rows = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>();
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long failed;
+
+        Import(Map<String, Long> categories) {
+            this.categories = categories;
+        }
+
+        void accept(long line, ProductImportRow row) {
+            rowsRead++;
+            String problem = validate(row);
+            if (problem != null) {
+                fail(line, problem);
+                return;
+            }
+            rows.add(row);
+            lines.add(line);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            rowsRead++;
+            fail(line, message);
+        }
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportErrorDTO(line, message));
+            }
+        }
+
+        private String validate(ProductImportRow row) {
+            if (row.getName() == null || row.getName().isBlank()) {
+                return "Name is required";
+            }
+            if (row.getPrice() == null || row.getPrice().signum() < 0) {
+                return "Price is required and must not be negative";
+            }
+            if (row.getQuantity() != null && row.getQuantity() < 0) {
+                return "Quantity must not be negative";
+            }
+            if (row.getCategoryId() == null) {
+                Long categoryId = row.getCategory() == null ? null
+                        : categories.get(row.getCategory().trim().toLowerCase());
+                if (categoryId == null) {
+                    return "Unknown category: " + row.getCategory();
+                }
+                row.setCategoryId(categoryId);
+            } else if (!categories.containsValue(row.getCategoryId())) {
+                return "Unknown category id: " + row.getCategoryId();
+            }
+            return null;
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(rows));
+                imported += rows.size();
+            } catch (DataAccessException e) {
+                // The whole batch rolled back, so every row in it is reported
+                String message = "Batch rejected by the database: " + e.getMostSpecificCause().getMessage();
+                for (Long line : lines) {
+                    fail(line, message);
+                }
+            }
+            rows.clear();
+            lines.clear();
+        }
+    }
+
+    private void insertBatch(List<ProductImportRow> rows) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Timestamp now = Timestamp.from(Instant.now());
+            long[] ids = new long[rows.size()];
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                for (ProductImportRow row : rows) {
+                    insert.setString(1, row.getName());
+                    insert.setString(2, row.getDescription());
+                    insert.setBigDecimal(3, row.getPrice());
+                    insert.setInt(4, row.getQuantity() == null ? 0 : row.getQuantity());
+                    insert.setString(5, row.getBrand());
+                    insert.setBoolean(6, Boolean.TRUE.equals(row.getBestseller()));
+                    insert.setBoolean(7, Boolean.TRUE.equals(row.getNewArrival()));
+                    insert.setLong(8, row.getCategoryId());
+                    insert.setTimestamp(9, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                // Keys come back in insertion order, one per row
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next()) {
+                        ids[i++] = keys.getLong(1);
+                    }
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_IMAGE)) {
+                boolean any = false;
+                for (int i = 0; i < rows.size(); i++) {
+                    List<String> images = rows.get(i).getImages();
+                    if (images == null) {
+                        continue;
+                    }
+                    for (int position = 0; position < images.size(); position++) {
+                        insert.setLong(1, ids[i]);
+                        insert.setInt(2, position);
+                        insert.setString(3, images.get(position));
+                        insert.addBatch();
+                        any = true;
+                    }
+                }
+                if (any) {
+                    insert.executeBatch();
+                }
+            }
+            return null;
+        });
+    }
+}
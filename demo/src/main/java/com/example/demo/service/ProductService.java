@@ -1,25 +1,48 @@
 package com.example.demo.service;
 
+import com.example.demo.config.CacheConfig;
+import com.example.demo.dto.CollectionVersion;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.dto.ProductSearchResultDTO;
+import com.example.demo.dto.SuggestionDTO;
+import com.example.demo.event.ProductChangedEvent;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.ProductMapper;
 import com.example.demo.model.Category; // Import Category
 import com.example.demo.model.Product;
 import com.example.demo.repositories.CategoryRepository; // Import CategoryRepository
 import com.example.demo.repositories.ProductRepository;
+import com.example.demo.search.FacetQuery;
+import com.example.demo.search.FacetResult;
+import com.example.demo.search.ProductFacetIndex;
+import com.example.demo.search.ProductSearchIndex;
+import com.example.demo.search.ProductSuggestIndex;
+import com.example.demo.specification.KeysetCursor;
+import com.example.demo.specification.ProductSort;
+import com.example.demo.specification.ProductSpecification;
 import jakarta.transaction.Transactional; // Import Transactional
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
     private ProductRepository productRepository;
@@ -33,6 +56,21 @@ public class ProductService {
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private ProductSpecification productSpecification;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // NEW METHOD: Creates a product and uploads images in one go.
     @Transactional
     public ProductDTO createProductWithImages(ProductDTO productDTO, List<MultipartFile> images) throws IOException {
@@ -51,13 +89,14 @@ public class ProductService {
         }
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ProductChangedEvent.ChangeType.CREATED));
         return productMapper.toDTO(savedProduct);
     }
 
     // NEW METHOD: Updates a product and its images.
     @Transactional
     public ProductDTO updateProductWithImages(Long id, ProductDTO productDTO, List<MultipartFile> images) throws IOException {
-        Product existingProduct = productRepository.findById(id)
+        Product existingProduct = productRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
 
         // Update fields from DTO
@@ -84,6 +123,7 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.UPDATED));
         return productMapper.toDTO(updatedProduct);
     }
 
@@ -101,26 +141,132 @@ public class ProductService {
     }
 
     // --- The rest of your service methods ---
-    public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(productMapper::toDTO)
-                .collect(Collectors.toList());
+    // Keyset paginated listing: reads one extra row to know whether another page exists
+    // and hands back the position of the last row as an opaque cursor.
+    public CursorPage<ProductListDTO> getAllProducts(String search, BigDecimal minPrice, BigDecimal maxPrice, String brand,
+                                                     Boolean bestseller, Boolean newArrival, Long categoryId,
+                                                     String sort, String cursor, Integer size) {
+        ProductSort productSort = ProductSort.parse(sort);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        int pageSize = pageSize(size);
+
+        if (search != null && !search.isBlank() && productSearchIndex.isReady()) {
+            // Text matching, filtering and paging all happen in the indexes, however many products match;
+            // the database only loads the rows of the page
+            FacetQuery query = facetQuery(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
+            FacetResult result = productFacetIndex.query(query, productSort, after, pageSize);
+            return new CursorPage<>(hydrate(result.getPageIds()), result.getNextCursor(), result.isHasNext());
+        }
+        // The LIKE scan is only left as a fallback while the index is still being built
+        Specification<Product> spec = productSpecification
+                .getProducts(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
+        spec = spec.and(productSpecification.after(productSort, after));
+
+        List<ProductListDTO> rows = productRepository.findListView(spec, productSort.toSort(), pageSize + 1);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductListDTO> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductListDTO last = page.get(page.size() - 1);
+            nextCursor = productSort.cursorAfter(last.getId(), last.getName(), last.getPrice()).encode();
+        }
+        return new CursorPage<>(new ArrayList<>(page), nextCursor, hasNext);
     }
 
-    public List<ProductDTO> getBestsellers() {
-        return productRepository.findByBestsellerIsTrue(Pageable.unpaged()).getContent().stream()
-                .map(productMapper::toDTO)
-                .collect(Collectors.toList());
+    // Category pages. First pages are the most requested URLs on the site, so they are cached
+    // per category, sort and size; later pages are cheap keyset seeks on (category_id, ..., id).
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_FIRST_PAGES,
+            key = "#categoryId + ':' + #sort + ':' + #size",
+            condition = "#cursor == null || #cursor.isBlank()",
+            sync = true)
+    public CursorPage<ProductListDTO> getCategoryProducts(Long categoryId, String sort, String cursor, Integer size) {
+        CursorPage<ProductListDTO> page = getAllProducts(null, null, null, null, null, null, categoryId, sort, cursor, size);
+        if (page.getContent().isEmpty() && !categoryRepository.existsById(categoryId)) {
+            throw new ResourceNotFoundException("Category not found with ID: " + categoryId);
+        }
+        return page;
     }
 
-    public List<ProductDTO> getNewArrivals() {
-        return productRepository.findByNewArrivalIsTrue(Pageable.unpaged()).getContent().stream()
-                .map(productMapper::toDTO)
-                .collect(Collectors.toList());
+    // Filters, facets and paging are all answered by the in-memory indexes,
+    // the database is only asked for the rows of the returned page.
+    public ProductSearchResultDTO searchProducts(String search, BigDecimal minPrice, BigDecimal maxPrice, String brand,
+                                                 Boolean bestseller, Boolean newArrival, Long categoryId,
+                                                 String sort, String cursor, Integer size) {
+        FacetQuery query = facetQuery(search, minPrice, maxPrice, brand, bestseller, newArrival, categoryId);
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        FacetResult result = productFacetIndex.query(query, ProductSort.parse(sort), after, pageSize(size));
+
+        CursorPage<ProductListDTO> page = new CursorPage<>(hydrate(result.getPageIds()), result.getNextCursor(), result.isHasNext());
+        return new ProductSearchResultDTO(page, result.getTotal(), result.getBrands(), result.getCategories(),
+                result.getBestsellerCount(), result.getNewArrivalCount());
+    }
+
+    // Typeahead, answered from the in-memory trie without touching the database
+    public List<SuggestionDTO> suggest(String query, Integer limit) {
+        int max = limit == null || limit <= 0 ? ProductSuggestIndex.TOP_K : Math.min(limit, ProductSuggestIndex.TOP_K);
+        return productSuggestIndex.suggest(query, max);
+    }
+
+    private FacetQuery facetQuery(String search, BigDecimal minPrice, BigDecimal maxPrice, String brand,
+                                  Boolean bestseller, Boolean newArrival, Long categoryId) {
+        FacetQuery query = new FacetQuery();
+        query.setBrand(brand);
+        query.setCategoryId(categoryId);
+        query.setBestseller(bestseller);
+        query.setNewArrival(newArrival);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        if (search != null && !search.isBlank()) {
+            query.setTextMatches(productSearchIndex.search(search));
+        }
+        return query;
+    }
+
+    // Loads the listing rows for the given ids and keeps them in the given order
+    private List<ProductListDTO> hydrate(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductListDTO> rows = new HashMap<>();
+        productRepository.findListView(productSpecification.idIn(ids), null, null)
+                .forEach(row -> rows.put(row.getId(), row));
+        List<ProductListDTO> ordered = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            ProductListDTO row = rows.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // Read by ProductSnapshotService, the controllers serve its in-memory snapshots
+    public List<ProductListDTO> getBestsellers(int limit) {
+        Specification<Product> spec = productSpecification.getProducts(null, null, null, null, true, null, null);
+        return productRepository.findListView(spec, Sort.by(Sort.Direction.DESC, "id"), limit);
+    }
+
+    public List<ProductListDTO> getNewArrivals(int limit) {
+        Specification<Product> spec = productSpecification.getProducts(null, null, null, null, null, true, null);
+        return productRepository.findListView(spec, Sort.by(Sort.Direction.DESC, "id"), limit);
+    }
+
+    public CollectionVersion getCatalogVersion() {
+        return productRepository.findCollectionVersion();
     }
 
+    // Concurrent misses for the same id wait for a single load (sync = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_DETAILS, key = "#id", sync = true)
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         return productMapper.toDTO(product);
     }
@@ -130,5 +276,6 @@ public class ProductService {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.DELETED));
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ProductListDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, already serialized product list. Bodies for smaller limits are
+ * serialized (and compressed) on first use and kept with the snapshot, which is replaced as a whole.
+ */
+public class ProductSnapshot {
+    private final List<ProductListDTO> items;
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, CachedBody> bodies = new ConcurrentHashMap<>();
+
+    public ProductSnapshot(List<ProductListDTO> items, ObjectMapper objectMapper) {
+        this.items = List.copyOf(items);
+        this.objectMapper = objectMapper;
+        this.bodies.put(this.items.size(), new CachedBody(serialize(this.items)));
+    }
+
+    // The ETag is derived from the content, so it stays the same across refreshes and instances until the list changes
+    public CachedBody body(Integer limit) {
+        int size = effectiveSize(limit);
+        return bodies.computeIfAbsent(size, n -> new CachedBody(serialize(items.subList(0, n))));
+    }
+
+    private int effectiveSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return items.size();
+        }
+        return Math.min(limit, items.size());
+    }
+
+    private byte[] serialize(List<ProductListDTO> list) {
+        try {
+            return objectMapper.writeValueAsBytes(list);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize product snapshot", e);
+        }
+    }
+}
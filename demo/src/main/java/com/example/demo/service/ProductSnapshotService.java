@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ProductChangedEvent;
+import com.example.demo.event.ProductStockChangedEvent;
+import com.example.demo.event.ProductsImportedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the homepage lists (bestsellers and new arrivals) in memory as serialized snapshots.
+ * They are rebuilt on a fixed schedule and shortly after committed product writes (at most once
+ * per catalog.snapshot.debounce-ms however many writes land, and never on the writing request's
+ * thread), and swapped in atomically so readers never see a half built list.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSnapshotService {
+    private final Logger logger = LoggerFactory.getLogger(ProductSnapshotService.class);
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${catalog.snapshot.max-size:100}")
+    private int maxSize;
+
+    private final AtomicReference<ProductSnapshot> bestsellers = new AtomicReference<>();
+    private final AtomicReference<ProductSnapshot> newArrivals = new AtomicReference<>();
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    public ProductSnapshot getBestsellers() {
+        ProductSnapshot snapshot = bestsellers.get();
+        if (snapshot == null) {
+            refresh();
+            snapshot = bestsellers.get();
+        }
+        return snapshot;
+    }
+
+    public ProductSnapshot getNewArrivals() {
+        ProductSnapshot snapshot = newArrivals.get();
+        if (snapshot == null) {
+            refresh();
+            snapshot = newArrivals.get();
+        }
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-ms:300000}", initialDelayString = "${catalog.snapshot.refresh-ms:300000}")
+    public synchronized void refresh() {
+        bestsellers.set(new ProductSnapshot(productService.getBestsellers(maxSize), objectMapper));
+        newArrivals.set(new ProductSnapshot(productService.getNewArrivals(maxSize), objectMapper));
+        logger.debug("Refreshed bestseller and new arrival snapshots");
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.snapshot.debounce-ms:1000}")
+    public void refreshIfStale() {
+        if (stale.getAndSet(false)) {
+            refresh();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        stale.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        stale.set(true);
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        stale.set(true);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized bodies of the public GETs that change a few times a day, kept until the
+ * owning service reports a write. Each key carries a generation so that a body loaded
+ * while a write was in progress is never stored over the invalidation.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCache {
+    public static final String CATEGORIES = "categories";
+    public static final String HERO = "hero";
+    public static final String APPROVED_REVIEWS = "reviews/approved";
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private record Entry(long generation, CachedBody body) {
+    }
+
+    public CachedBody get(String key, Supplier<?> loader) {
+        AtomicLong generation = generation(key);
+        long current = generation.get();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation() == current) {
+            return entry.body();
+        }
+        CachedBody body = new CachedBody(serialize(key, loader.get()));
+        entries.compute(key, (k, old) -> generation.get() == current ? new Entry(current, body) : old);
+        return body;
+    }
+
+    public void invalidate(String key) {
+        generation(key).incrementAndGet();
+        entries.remove(key);
+    }
+
+    private AtomicLong generation(String key) {
+        return generations.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private byte[] serialize(String key, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize cached response " + key, e);
+        }
+    }
+}
@@ -24,6 +24,7 @@ public class ReviewService {
     private final UserRepository userRepository;
     private final OrderRepository orderRepository; // Changed to check for any order
     private final ReviewMapper reviewMapper;
+    private final ResponseCache responseCache;
 
     public ReviewDTO addReview(Long userId, ReviewDTO reviewDTO) {
         User user = userRepository.findById(userId)
@@ -62,6 +63,7 @@ public class ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
         review.setApproved(true);
         Review approvedReview = reviewRepository.save(review);
+        responseCache.invalidate(ResponseCache.APPROVED_REVIEWS);
         return reviewMapper.toDTO(approvedReview);
     }
 
@@ -70,5 +72,6 @@ public class ReviewService {
             throw new ResourceNotFoundException("Review not found");
         }
         reviewRepository.deleteById(reviewId);
+        responseCache.invalidate(ResponseCache.APPROVED_REVIEWS);
     }
 }
\ No newline at end of file
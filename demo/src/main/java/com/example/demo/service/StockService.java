@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ProductStockChangedEvent;
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.inventory.InventoryReservations;
+import com.example.demo.inventory.Reservation;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Takes ordered quantities off product stock.
+ * Each line is a single conditional update, so the check and the decrement happen atomically in the
+ * database and two checkouts can never both take the last unit. All lines go out as one JDBC batch.
+ * With inventory.reservations.enabled the stock is taken from {@link InventoryReservations} instead,
+ * and only written to the table once the order has committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockService {
+    // Bumps version and updated_at as Hibernate would, so an admin edit loaded before the sale
+    // fails its optimistic lock instead of writing the old quantity back
+    private static final String DECREMENT = "update product " +
+            "set quantity = quantity - ?, version = version + 1, updated_at = ? " +
+            "where id = ? and quantity >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<InventoryReservations> inventoryReservations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Decrements stock by the given quantity per product id, all or nothing.
+     * A line matching no row (stock too low, or not set) throws {@link InsufficientStockException},
+     * rolling back the lines already applied.
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        // Rows are locked in id order, so two orders sharing products cannot deadlock each other
+        List<Long> productIds = new ArrayList<>(new TreeMap<>(quantities).keySet());
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> lines = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            int quantity = quantities.get(productId);
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for product " + productId);
+            }
+            lines.add(new Object[]{quantity, now, productId, quantity});
+        }
+        InventoryReservations reservations = inventoryReservations.getIfAvailable();
+        if (reservations != null) {
+            reserve(reservations, quantities);
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT, lines);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new InsufficientStockException("Not enough stock for product " + productIds.get(i));
+            }
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+    }
+
+    // The reservation follows the order's transaction: a sale on commit, stock returned on rollback
+    private void reserve(InventoryReservations reservations, Map<Long, Integer> quantities) {
+        Reservation reservation = reservations.reserve(quantities);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reservations.commit(reservation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    reservations.commit(reservation);
+                } else {
+                    reservations.release(reservation);
+                }
+            }
+        });
+    }
+}
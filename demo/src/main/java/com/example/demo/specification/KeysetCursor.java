@@ -0,0 +1,56 @@
+package com.example.demo.specification;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: the sort key it was read with,
+ * the value of that key and the row id used as a tie-breaker.
+ * Clients only ever see the Base64 encoded form. A null value (a row without a price or name)
+ * is kept apart from an empty one, the keyset predicates treat the two differently.
+ */
+@Getter
+public class KeysetCursor {
+    private static final String SEPARATOR = "|";
+    // Prefixes a present value; a value part without it stands for null
+    private static final String PRESENT = "=";
+
+    private final String sortKey;
+    private final long id;
+    private final String value;
+
+    public KeysetCursor(String sortKey, long id, String value) {
+        this.sortKey = sortKey;
+        this.id = id;
+        this.value = value;
+    }
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + id + SEPARATOR + (value == null ? "" : PRESENT + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The value goes last so it may contain the separator itself
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String value;
+            if (parts[2].isEmpty()) {
+                value = null;
+            } else if (parts[2].startsWith(PRESENT)) {
+                value = parts[2].substring(PRESENT.length());
+            } else {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[0], Long.parseLong(parts[1]), value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
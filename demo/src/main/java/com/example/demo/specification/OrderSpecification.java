@@ -0,0 +1,76 @@
+package com.example.demo.specification;
+
+import com.example.demo.model.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters and keyset for the admin order listing, newest first on (created_at, id).
+ * Every filter combination is served by one of the orders indexes: (status, created_at),
+ * (user_id, created_at) or (created_at); InnoDB appends the id to each, which settles ties.
+ */
+@Component
+public class OrderSpecification {
+    public static final String SORT_KEY = "CREATED_AT";
+    public static final Sort SORT = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    // from is inclusive, to exclusive
+    public Specification<Order> getOrders(Order.OrderStatus status, Long userId, LocalDateTime from, LocalDateTime to) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (status != null) {
+                predicates.add(criteriaBuilder.equal(root.get("status"), status));
+            }
+
+            if (userId != null) {
+                predicates.add(criteriaBuilder.equal(root.get("user").get("id"), userId));
+            }
+
+            if (from != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), from));
+            }
+
+            if (to != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("createdAt"), to));
+            }
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Keyset predicate: only orders strictly older than the cursor in (created_at, id) order
+    public Specification<Order> after(KeysetCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return null;
+            }
+            if (!SORT_KEY.equals(cursor.getSortKey())) {
+                throw new IllegalArgumentException("Cursor does not belong to the order listing");
+            }
+            LocalDateTime createdAt;
+            try {
+                createdAt = LocalDateTime.parse(cursor.getValue());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            Path<LocalDateTime> path = root.get("createdAt");
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(path, createdAt),
+                    criteriaBuilder.and(criteriaBuilder.equal(path, createdAt),
+                            criteriaBuilder.lessThan(root.get("id"), cursor.getId())));
+        };
+    }
+
+    public static KeysetCursor cursorAfter(Order order) {
+        return new KeysetCursor(SORT_KEY, order.getId(), order.getCreatedAt().toString());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.specification;
+
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+
+/**
+ * Sort order accepted by the keyset paginated product listing.
+ * Parsed from the usual "property,direction" request format, e.g. "price,desc".
+ * The id is always appended as a tie-breaker so that every row has a unique position.
+ */
+@Getter
+public class ProductSort {
+
+    public enum Key {
+        ID("id"), PRICE("price"), NAME("name");
+
+        private final String property;
+
+        Key(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+    }
+
+    private final Key key;
+    private final Sort.Direction direction;
+
+    public ProductSort(Key key, Sort.Direction direction) {
+        this.key = key;
+        this.direction = direction;
+    }
+
+    public static ProductSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return new ProductSort(Key.ID, Sort.Direction.ASC);
+        }
+        String[] parts = sort.split(",");
+        Key key = switch (parts[0].trim().toLowerCase()) {
+            case "id" -> Key.ID;
+            case "price" -> Key.PRICE;
+            case "name" -> Key.NAME;
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + parts[0]);
+        };
+        Sort.Direction direction = parts.length > 1
+                ? Sort.Direction.fromString(parts[1].trim())
+                : Sort.Direction.ASC;
+        return new ProductSort(key, direction);
+    }
+
+    public Sort toSort() {
+        if (key == Key.ID) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, key.getProperty()).and(Sort.by(direction, "id"));
+    }
+
+    /** Cursor pointing just after the given row. */
+    public KeysetCursor cursorAfter(Long id, String name, BigDecimal price) {
+        String value = switch (key) {
+            case ID -> null;
+            case PRICE -> price == null ? null : price.toPlainString();
+            case NAME -> name;
+        };
+        return new KeysetCursor(key.name(), id, value);
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.demo.specification;
 
 import com.example.demo.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
@@ -50,4 +53,63 @@ public class ProductSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
-}
\ No newline at end of file
+
+    // Restricts to ids already resolved elsewhere, e.g. by the in-memory search index
+    public Specification<Product> idIn(long[] ids) {
+        return (root, query, criteriaBuilder) -> {
+            List<Long> boxed = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                boxed.add(id);
+            }
+            return root.get("id").in(boxed);
+        };
+    }
+
+    // Keyset predicate: only rows strictly after the cursor in (sort key, id) order.
+    // Unlike an OFFSET this lets the database seek straight into the index, however deep the page is.
+    public Specification<Product> after(ProductSort sort, KeysetCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return null;
+            }
+            if (!sort.getKey().name().equals(cursor.getSortKey())) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            boolean ascending = sort.getDirection() == Sort.Direction.ASC;
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending
+                    ? criteriaBuilder.greaterThan(id, cursor.getId())
+                    : criteriaBuilder.lessThan(id, cursor.getId());
+
+            return switch (sort.getKey()) {
+                case ID -> idAfter;
+                case PRICE -> keysetAfter(criteriaBuilder, root.get("price"),
+                        cursor.getValue() == null ? null : parsePrice(cursor.getValue()), idAfter, ascending);
+                case NAME -> keysetAfter(criteriaBuilder, root.get("name"), cursor.getValue(), idAfter, ascending);
+            };
+        };
+    }
+
+    // MySQL sorts NULLs before every value ascending and after them descending, so a row without
+    // a value comes after the cursor when ascending from a null, or descending from any value.
+    private <Y extends Comparable<? super Y>> Predicate keysetAfter(CriteriaBuilder criteriaBuilder, Path<Y> path, Y value,
+                                                                    Predicate idAfter, boolean ascending) {
+        if (value == null) {
+            Predicate nullAfter = criteriaBuilder.and(criteriaBuilder.isNull(path), idAfter);
+            return ascending ? criteriaBuilder.or(nullAfter, criteriaBuilder.isNotNull(path)) : nullAfter;
+        }
+        Predicate valueAfter = ascending
+                ? criteriaBuilder.greaterThan(path, value)
+                : criteriaBuilder.lessThan(path, value);
+        Predicate after = criteriaBuilder.or(valueAfter, criteriaBuilder.and(criteriaBuilder.equal(path, value), idAfter));
+        return ascending ? after : criteriaBuilder.or(after, criteriaBuilder.isNull(path));
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
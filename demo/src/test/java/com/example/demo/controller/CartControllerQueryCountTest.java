@@ -0,0 +1,101 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Cart;
+import com.example.demo.model.CartItem;
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.model.User;
+import com.example.demo.repositories.CartRepository;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "cart.store.mode=jpa"
+})
+@AutoConfigureMockMvc
+@Transactional
+class CartControllerQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Test
+    void getCartWithOneItemRunsAtMostTwoStatements() throws Exception {
+        assertGetCartStatements(1);
+    }
+
+    @Test
+    void getCartWithManyItemsRunsAtMostTwoStatements() throws Exception {
+        assertGetCartStatements(25);
+    }
+
+    private void assertGetCartStatements(int itemCount) throws Exception {
+        User user = userRepository.save(new User("cart-qc-" + itemCount, "cart-qc-" + itemCount + "@example.com", "password"));
+        Category category = categoryRepository.save(new Category(null, "Cart query count " + itemCount, null, null));
+
+        Cart cart = new Cart(null, user, new ArrayList<>());
+        for (int i = 0; i < itemCount; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(100);
+            product.setCategory(category);
+            cart.getItems().add(new CartItem(null, cart, productRepository.save(product), 1));
+        }
+        cartRepository.save(cart);
+
+        // Nothing may be served from the persistence context, every load has to hit the database
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/cart")
+                        .with(authentication(new UsernamePasswordAuthenticationToken(user, null, List.of()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(itemCount));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+}
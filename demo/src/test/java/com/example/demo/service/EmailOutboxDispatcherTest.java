@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repositories.EmailOutboxRepository;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// GreenMail stands in for the SMTP server on localhost:3025
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "outbox.poll-ms=200",
+        "outbox.chunk-size=5"
+})
+class EmailOutboxDispatcherTest {
+    private final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcherTest.class);
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> queued = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAllById(queued);
+    }
+
+    @Test
+    void queuedEmailsAreDeliveredAfterCommit() throws Exception {
+        int count = 23;
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                queued.add(emailService.queue("customer" + i + "@example.com", "Order confirmation", "Order " + i).getId());
+            }
+        });
+        long queueMillis = (System.nanoTime() - start) / 1_000_000;
+
+        awaitTrue(() -> greenMail.getReceivedMessages().length == count);
+        awaitTrue(() -> outboxRepository.findAllById(queued).stream()
+                .allMatch(email -> email.getStatus() == EmailOutbox.Status.SENT));
+        logger.info("Queued {} emails in {} ms, delivered in {} ms",
+                count, queueMillis, (System.nanoTime() - start) / 1_000_000);
+        assertThat(outboxRepository.findAllById(queued)).allMatch(email -> email.getAttempts() == 1);
+    }
+
+    @Test
+    void rolledBackEmailsAreNeverSent() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            queued.add(emailService.queue("rollback@example.com", "Order confirmation", "Order").getId());
+            status.setRollbackOnly();
+        });
+        // Several poll intervals, any delivery would have happened by now
+        Thread.sleep(1000);
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        assertThat(outboxRepository.findAllById(queued)).isEmpty();
+    }
+
+    @Test
+    void malformedRecipientIsDeadLettered() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                queued.add(emailService.queue("<unterminated", "Order confirmation", "Order").getId()));
+
+        awaitTrue(() -> outboxRepository.findById(queued.get(0))
+                .map(email -> email.getStatus() == EmailOutbox.Status.DEAD)
+                .orElse(false));
+        EmailOutbox email = outboxRepository.findById(queued.get(0)).orElseThrow();
+        assertThat(email.getLastError()).isNotBlank();
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.ProductListDTO;
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Pages one row at a time, so every row boundary goes through a cursor, nulls included
+@SpringBootTest
+class ProductKeysetPaginationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Category category;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Keyset test " + System.nanoTime(), null, null));
+        products.add(productRepository.save(newProduct("Beta", new BigDecimal("5.00"))));
+        products.add(productRepository.save(newProduct(null, null)));
+        products.add(productRepository.save(newProduct("Alpha", new BigDecimal("10.00"))));
+        products.add(productRepository.save(newProduct("Gamma", null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllById(products.stream().map(Product::getId).toList());
+        categoryRepository.deleteById(category.getId());
+    }
+
+    @Test
+    void pagesAcrossNullPricesAscending() {
+        // MySQL puts NULLs first when ascending, ties on id
+        assertThat(pageAll("price,asc")).containsExactly(id(1), id(3), id(0), id(2));
+    }
+
+    @Test
+    void pagesAcrossNullPricesDescending() {
+        assertThat(pageAll("price,desc")).containsExactly(id(2), id(0), id(3), id(1));
+    }
+
+    @Test
+    void pagesAcrossNullNames() {
+        assertThat(pageAll("name,asc")).containsExactly(id(1), id(2), id(0), id(3));
+        assertThat(pageAll("name,desc")).containsExactly(id(3), id(0), id(2), id(1));
+    }
+
+    private List<Long> pageAll(String sort) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ProductListDTO> page = productService.getAllProducts(null, null, null, null, null, null,
+                    category.getId(), sort, cursor, 1);
+            page.getContent().forEach(row -> ids.add(row.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Long id(int index) {
+        return products.get(index).getId();
+    }
+
+    private Product newProduct(String name, BigDecimal price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(1);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.InsufficientStockException;
+import com.example.demo.model.Category;
+import com.example.demo.model.Product;
+import com.example.demo.repositories.CategoryRepository;
+import com.example.demo.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not @Transactional: every decrement has to commit on its own for the threads to race on the same row
+@SpringBootTest
+class StockServiceConcurrencyTest {
+    private static final int STOCK = 200;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    private final Logger logger = LoggerFactory.getLogger(StockServiceConcurrencyTest.class);
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Category category;
+    private Product product;
+    private Product other;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Stock test " + System.nanoTime(), null, null));
+        product = productRepository.save(newProduct("Hot SKU", STOCK));
+        other = productRepository.save(newProduct("Other SKU", 1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllById(List.of(product.getId(), other.getId()));
+        categoryRepository.deleteById(category.getId());
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        stockService.decrementStock(Map.of(product.getId(), 1));
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        logger.info("{} decrements from {} threads in {} ms ({}/s), {} sold, {} rejected",
+                attempts, THREADS, elapsedNanos / 1_000_000, Math.round(attempts * 1e9 / elapsedNanos), sold.get(), rejected.get());
+
+        assertThat(sold.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(attempts - STOCK);
+        assertThat(productRepository.findQuantityById(product.getId())).contains(0);
+    }
+
+    @Test
+    void orderIsAllOrNothing() {
+        assertThatThrownBy(() -> stockService.decrementStock(Map.of(product.getId(), 5, other.getId(), 2)))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(productRepository.findQuantityById(product.getId())).contains(STOCK);
+        assertThat(productRepository.findQuantityById(other.getId())).contains(1);
+    }
+
+    private Product newProduct(String name, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(quantity);
+        product.setCategory(category);
+        return product;
+    }
+}
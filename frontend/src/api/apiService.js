@@ -21,6 +21,14 @@ export const getAllProducts = (params) => {
     return apiService.get('/products', { params });
 };
 
+export const getCategoryProducts = (categoryId, params) => {
+    return apiService.get(`/categories/${categoryId}/products`, { params });
+};
+
+export const getProductSuggestions = (q, limit) => {
+    return apiService.get('/products/suggest', { params: { q, limit } });
+};
+
 export const getProductById = (id) => {
     return apiService.get(`/products/${id}`);
 };
@@ -65,8 +73,16 @@ export const addToCart = (productId, quantity) => {
     return apiService.post(`/cart/add?productId=${productId}&quantity=${quantity}`);
 };
 
-export const createOrder = (orderData) => {
-    return apiService.post(`/orders?address=${orderData.address}&phoneNumber=${orderData.phoneNumber}`);
+// operations: [{ op: 'SET' | 'ADD' | 'REMOVE', productId, quantity }]
+export const updateCart = (operations) => {
+    return apiService.patch('/cart', { operations });
+};
+
+// Send the same idempotencyKey when retrying, so a retry cannot place the order twice
+export const createOrder = (orderData, idempotencyKey) => {
+    return apiService.post(`/orders?address=${orderData.address}&phoneNumber=${orderData.phoneNumber}`, null, {
+        headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {}
+    });
 };
 
 // --- New Function for User Orders ---
@@ -127,8 +143,9 @@ export const deleteCategory = (id) => {
 };
 
 
-export const getAllOrders = () => {
-    return apiService.get('/orders');
+// params: { status, userId, from, to, cursor, size }; returns { content, nextCursor, hasNext }
+export const getAllOrders = (params) => {
+    return apiService.get('/orders', { params });
 };
 
 export const updateOrderStatus = (orderId, status) => {
@@ -2,10 +2,10 @@ import React from 'react';
 import { Link } from 'react-router-dom';
 
 const ProductCard = ({ product }) => {
-    // Correctly access the first image from the 'images' array
-    const fullImageUrl = (product.images && product.images.length > 0)
-        ? product.images[0]
-        : 'https://placehold.co/300x300/E91E63/FFFFFF?text=Product';
+    // List endpoints only send the first image as 'image'; full products still carry the 'images' array
+    const fullImageUrl = product.image
+        || ((product.images && product.images.length > 0) ? product.images[0] : null)
+        || 'https://placehold.co/300x300/E91E63/FFFFFF?text=Product';
 
     return (
         <div className="border rounded-lg overflow-hidden shadow-lg hover:shadow-2xl transition-shadow duration-300">
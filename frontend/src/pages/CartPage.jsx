@@ -44,7 +44,7 @@ const CartPage = () => {
             ) : (
                 <div className="max-w-3xl mx-auto">
                     {cart.items.map(item => (
-                        <div key={item.id} className="flex items-center justify-between border-b py-4">
+                        <div key={item.productId} className="flex items-center justify-between border-b py-4">
                             <div>
                                 <h2 className="text-lg font-semibold">{item.productName}</h2>
                                 <p>Quantity: {item.quantity}</p>
@@ -7,6 +7,8 @@ const OrderPage = () => {
     const [formData, setFormData] = useState({ address: '', phoneNumber: '' });
     const [error, setError] = useState('');
     const [success, setSuccess] = useState('');
+    // One key per checkout, so a double submit or a retried request places a single order
+    const [idempotencyKey] = useState(() => crypto.randomUUID());
     const navigate = useNavigate();
 
     useEffect(() => {
@@ -36,7 +38,7 @@ const OrderPage = () => {
         }
 
         try {
-            await createOrder(formData);
+            await createOrder(formData, idempotencyKey);
             setSuccess('Order placed successfully! Redirecting to profile...');
             setTimeout(() => {
                 navigate('/profile');
@@ -76,7 +78,7 @@ const OrderPage = () => {
                     <div className="bg-white p-6 rounded-lg shadow-md">
                         <h2 className="text-xl font-semibold mb-4 border-b pb-2">Order Summary</h2>
                         {cart.items.map(item => (
-                            <div key={item.id} className="flex justify-between items-center mb-2">
+                            <div key={item.productId} className="flex justify-between items-center mb-2">
                                 <span className="text-gray-700">{item.productName}</span>
                                 <span className="text-gray-600">Qty: {item.quantity}</span>
                             </div>
@@ -1,6 +1,6 @@
 import React, { useState, useEffect, useCallback } from 'react';
 import { useSearchParams } from 'react-router-dom';
-import { getAllProducts, getAllCategories } from '../api/apiService';
+import { getAllProducts, getAllCategories, getCategoryProducts } from '../api/apiService';
 import ProductCard from '../components/ProductCard';
 import Loader from '../components/Loader';
 
@@ -9,6 +9,8 @@ const ProductsPage = () => {
     const [categories, setCategories] = useState([]);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [searchParams, setSearchParams] = useSearchParams();
 
     const [filters, setFilters] = useState({
@@ -26,36 +28,49 @@ const ProductsPage = () => {
             .catch(err => console.error("Failed to fetch categories:", err));
     }, []);
 
-    useEffect(() => {
-        const fetchProducts = async () => {
-            setLoading(true);
-            setError(null);
-            try {
-                const params = new URLSearchParams();
-                if (filters.search) params.append('search', filters.search);
-                if (filters.category && filters.category !== 'all') params.append('category', filters.category);
-                if (filters.minPrice) params.append('minPrice', filters.minPrice);
-                if (filters.maxPrice) params.append('maxPrice', filters.maxPrice);
-                params.append('sort', filters.sort);
+    // Without a cursor the list starts over, with one the next page is appended
+    const fetchProducts = useCallback(async (cursor = null) => {
+        setError(null);
+        try {
+            const params = new URLSearchParams();
+            if (filters.search) params.append('search', filters.search);
+            if (filters.category && filters.category !== 'all') params.append('category', filters.category);
+            if (filters.minPrice) params.append('minPrice', filters.minPrice);
+            if (filters.maxPrice) params.append('maxPrice', filters.maxPrice);
+            params.append('sort', filters.sort);
+            if (cursor) params.append('cursor', cursor);
 
-                const response = await getAllProducts(params);
-                const productsArray = Array.isArray(response.data) ? response.data : response.data.content;
-                setProducts(productsArray || []);
-            } catch (err) {
-                console.error("Failed to fetch products:", err);
-                setError("Could not load products. Please try again.");
-            } finally {
-                setLoading(false);
-            }
-        };
+            // A plain category view has its own (cached) endpoint
+            const categoryOnly = filters.category && filters.category !== 'all'
+                && !filters.search && !filters.minPrice && !filters.maxPrice;
+            const response = categoryOnly
+                ? await getCategoryProducts(filters.category, { sort: filters.sort, cursor: cursor || undefined })
+                : await getAllProducts(params);
+            const page = response.data.content || [];
+            setProducts(previous => cursor ? [...previous, ...page] : page);
+            setNextCursor(response.data.hasNext ? response.data.nextCursor : null);
+        } catch (err) {
+            console.error("Failed to fetch products:", err);
+            setError("Could not load products. Please try again.");
+        }
+    }, [filters]);
 
+    useEffect(() => {
         // Debounce to prevent rapid API calls while typing in filters
-        const timerId = setTimeout(() => {
-            fetchProducts();
+        const timerId = setTimeout(async () => {
+            setLoading(true);
+            await fetchProducts();
+            setLoading(false);
         }, 500);
 
         return () => clearTimeout(timerId);
-    }, [filters]);
+    }, [fetchProducts]);
+
+    const handleLoadMore = async () => {
+        setLoadingMore(true);
+        await fetchProducts(nextCursor);
+        setLoadingMore(false);
+    };
 
     const handleFilterChange = (e) => {
         const { name, value } = e.target;
@@ -93,6 +108,17 @@ const ProductsPage = () => {
                             No products match your criteria.
                         </p>
                     )}
+                    {nextCursor && (
+                        <div className="text-center mt-10">
+                            <button
+                                onClick={handleLoadMore}
+                                disabled={loadingMore}
+                                className="bg-pink-500 text-white py-2 px-6 rounded hover:bg-pink-600 disabled:opacity-50"
+                            >
+                                {loadingMore ? 'Loading...' : 'Load more'}
+                            </button>
+                        </div>
+                    )}
                 </>
             )}
         </div>
@@ -14,7 +14,7 @@ const AdminDashboard = () => {
                 // Fetch all dashboard data at the same time
                 const [productsResponse, ordersResponse, reviewsResponse] = await Promise.all([
                     getAllProducts(),
-                    getAllOrders(),
+                    getAllOrders({ size: 5 }),
                     getPendingReviews()
                 ]);
 
@@ -22,7 +22,7 @@ const AdminDashboard = () => {
                 const productsArray = Array.isArray(productsResponse.data) ? productsResponse.data : productsResponse.data.content;
                 setProducts(productsArray || []);
 
-                setOrders(ordersResponse.data);
+                setOrders(ordersResponse.data.content || []);
                 setPendingReviews(reviewsResponse.data);
             } catch (err) {
                 setError('Failed to fetch dashboard data.');
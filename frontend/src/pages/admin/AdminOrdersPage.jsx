@@ -7,13 +7,17 @@ const AdminOrdersPage = () => {
     const [error, setError] = useState('');
     const [success, setSuccess] = useState('');
     const [loading, setLoading] = useState(true);
+    const [statusFilter, setStatusFilter] = useState('');
+    const [nextCursor, setNextCursor] = useState(null);
 
-    const fetchOrders = async () => {
+    // Without a cursor the list starts over, with one the next page is appended
+    const fetchOrders = async (cursor = null) => {
         try {
-            const response = await getAllOrders();
-            // The fix is to use response.data, which contains the array of orders
-            const ordersArray = Array.isArray(response.data) ? response.data : [];
-            setOrders(ordersArray);
+            const params = { cursor: cursor || undefined, status: statusFilter || undefined };
+            const response = await getAllOrders(params);
+            const page = response.data.content || [];
+            setOrders(cursor ? [...orders, ...page] : page);
+            setNextCursor(response.data.hasNext ? response.data.nextCursor : null);
         } catch (err) {
             setError('Failed to fetch orders. Please try again.');
             console.error(err);
@@ -24,7 +28,7 @@ const AdminOrdersPage = () => {
 
     useEffect(() => {
         fetchOrders();
-    }, []);
+    }, [statusFilter]);
 
     const handleStatusChange = async (orderId, newStatus) => {
         setError('');
@@ -48,6 +52,19 @@ const AdminOrdersPage = () => {
             <h1 className="text-3xl font-bold mb-6">Manage Orders</h1>
             {error && <p className="text-red-500 bg-red-100 p-3 rounded-md mb-4">{error}</p>}
             {success && <p className="text-green-500 bg-green-100 p-3 rounded-md mb-4">{success}</p>}
+            <div className="mb-4">
+                <select
+                    value={statusFilter}
+                    onChange={(e) => setStatusFilter(e.target.value)}
+                    className="p-2 border rounded-md"
+                >
+                    <option value="">All statuses</option>
+                    <option value="PREPARING">Preparing</option>
+                    <option value="DELIVERING">Delivering</option>
+                    <option value="DELIVERED">Delivered</option>
+                    <option value="CANCELED">Canceled</option>
+                </select>
+            </div>
             <div className="overflow-x-auto bg-white p-4 rounded-lg shadow">
                 <table className="min-w-full bg-white">
                     <thead>
@@ -83,6 +100,14 @@ const AdminOrdersPage = () => {
                     ))}
                     </tbody>
                 </table>
+                {nextCursor && (
+                    <button
+                        onClick={() => fetchOrders(nextCursor)}
+                        className="mt-4 bg-pink-500 text-white py-2 px-4 rounded hover:bg-pink-600"
+                    >
+                        Load more
+                    </button>
+                )}
             </div>
         </div>
     );
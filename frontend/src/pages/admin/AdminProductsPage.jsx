@@ -5,11 +5,15 @@ import { getAllProducts, deleteProduct } from '../../api/apiService';
 const AdminProductsPage = () => {
     const [products, setProducts] = useState([]);
     const [error, setError] = useState('');
+    const [nextCursor, setNextCursor] = useState(null);
 
-    const fetchProducts = async () => {
+    // Without a cursor the list starts over, with one the next page is appended
+    const fetchProducts = async (cursor = null) => {
         try {
-            const response = await getAllProducts();
-            setProducts(response.data.content || response.data);
+            const response = await getAllProducts({ cursor: cursor || undefined });
+            const page = response.data.content || [];
+            setProducts(cursor ? [...products, ...page] : page);
+            setNextCursor(response.data.hasNext ? response.data.nextCursor : null);
         } catch (err) {
             setError('Failed to fetch products.');
         }
@@ -54,6 +58,14 @@ const AdminProductsPage = () => {
                         </li>
                     ))}
                 </ul>
+                {nextCursor && (
+                    <button
+                        onClick={() => fetchProducts(nextCursor)}
+                        className="mt-4 bg-pink-500 text-white py-2 px-4 rounded hover:bg-pink-600"
+                    >
+                        Load more
+                    </button>
+                )}
             </div>
         </div>
     );